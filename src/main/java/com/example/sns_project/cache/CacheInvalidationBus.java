@@ -0,0 +1,60 @@
+package com.example.sns_project.cache;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 여러 애플리케이션 노드의 로컬 캐시를 맞추기 위한 Redis Pub/Sub 무효화 채널
+ * 메시지 형식: "{노드 ID}|{캐시 이름}|{키1},{키2},..." (키에는 ',' 와 '|' 를 쓰지 않음)
+ * 메시지를 놓치더라도 로컬 캐시 TTL 이 지나면 다시 맞춰집니다.
+ */
+@Log4j2
+@Component
+public class CacheInvalidationBus implements MessageListener {
+
+    public static final String CHANNEL = "cache:invalidation";
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Map<String, TwoTierCache<?>> caches = new ConcurrentHashMap<>();
+
+    public CacheInvalidationBus(StringRedisTemplate stringRedisTemplate) {
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    void register(TwoTierCache<?> cache) {
+        caches.put(cache.getName(), cache);
+    }
+
+    void publish(String cacheName, Collection<String> keys) {
+        try {
+            stringRedisTemplate.convertAndSend(CHANNEL, nodeId + "|" + cacheName + "|" + String.join(",", keys));
+        } catch (Exception e) {
+            log.error("Failed to publish cache invalidation for {}", cacheName, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+        if (parts.length != 3 || nodeId.equals(parts[0])) {
+            return; // 내가 보낸 메시지는 이미 처리함
+        }
+
+        TwoTierCache<?> cache = caches.get(parts[1]);
+        if (cache == null || parts[2].isEmpty()) {
+            return;
+        }
+        cache.evictLocal(Arrays.asList(parts[2].split(",")));
+    }
+}
@@ -0,0 +1,408 @@
+package com.example.sns_project.cache;
+
+import com.example.sns_project.util.TransactionUtils;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Builder;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 로컬 메모리(Caffeine) + Redis 2단 캐시
+ * 1차로 로컬 캐시를 보고, 없으면 Redis, 그래도 없으면 loader 로 읽어 두 단계에 모두 채웁니다.
+ * 무효화는 로컬/Redis 에서 지운 뒤 {@link CacheInvalidationBus} 로 다른 노드에도 알립니다.
+ * redisTemplate 이 null 이면 로컬 전용 캐시로 동작합니다. (짧은 TTL 로 충분한 목록 캐시 등)
+ *
+ * 같은 키의 캐시 미스가 동시에 몰리면 loader 는 한 번만 실행되고 나머지 요청은 그 결과를 함께 받습니다. (single-flight)
+ * refreshAheadRatio 를 주면 로컬 TTL 의 해당 비율이 지난 항목은 기존 값을 반환하면서 백그라운드에서 미리 갱신합니다.
+ * 진행 중인 로드를 loadWaitTimeout 안에 받지 못하거나 갱신이 취소/실패하면 기다리던 요청은 직접 로드합니다.
+ *
+ * 키마다(해시로 나눈 칸마다) 무효화 번호를 두어, 로드 중에 무효화가 일어나면 로드한 값은 반환만 하고 저장하지 않습니다.
+ * (무효화 전에 읽은 이전 값이 무효화 뒤에 다시 캐싱되는 것을 막음)
+ * 만료/미리 갱신 시각은 ticker 로 읽습니다. (기본은 System.nanoTime, 테스트에서는 직접 움직이는 ticker 사용)
+ */
+@Log4j2
+public class TwoTierCache<V> {
+
+    private static final Duration DEFAULT_LOAD_WAIT_TIMEOUT = Duration.ofSeconds(5);
+    private static final int INVALIDATION_STRIPES = 1024; // 2의 거듭제곱
+
+    private final String name;
+    private final Cache<String, Entry<V>> localCache;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final Duration redisTtl;
+    private final CacheInvalidationBus invalidationBus;
+    private final long refreshAfterNanos;
+    private final Executor refreshExecutor;
+    private final Duration loadWaitTimeout;
+    private final Ticker ticker;
+
+    // 키별로 진행 중인 로드 (같은 키는 한 번만 로드)
+    private final ConcurrentHashMap<String, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    // 무효화 번호 (같은 칸의 다른 키가 무효화되어도 올라가지만, 그 경우 저장을 한 번 건너뛸 뿐)
+    private final AtomicLongArray invalidations = new AtomicLongArray(INVALIDATION_STRIPES);
+
+    @Builder
+    public TwoTierCache(String name,
+                        long maximumSize,
+                        Duration localTtl,
+                        RedisTemplate<String, Object> redisTemplate,
+                        Duration redisTtl,
+                        double refreshAheadRatio,
+                        Executor refreshExecutor,
+                        Duration loadWaitTimeout,
+                        Ticker ticker,
+                        CacheInvalidationBus invalidationBus,
+                        MeterRegistry meterRegistry) {
+        this.name = name;
+        this.ticker = ticker != null ? ticker : Ticker.systemTicker();
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(localTtl)
+                .ticker(this.ticker)
+                .recordStats()
+                .build();
+        this.redisTemplate = redisTemplate;
+        this.redisTtl = redisTtl;
+        this.invalidationBus = invalidationBus;
+        this.refreshAfterNanos = refreshAheadRatio > 0 && refreshAheadRatio < 1 && refreshExecutor != null
+                ? (long) (localTtl.toNanos() * refreshAheadRatio)
+                : Long.MAX_VALUE;
+        this.refreshExecutor = refreshExecutor;
+        this.loadWaitTimeout = loadWaitTimeout != null ? loadWaitTimeout : DEFAULT_LOAD_WAIT_TIMEOUT;
+
+        // cache_gets_total{cache="..."}, cache_evictions_total 등으로 노출
+        CaffeineCacheMetrics.monitor(meterRegistry, localCache, name);
+        invalidationBus.register(this);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 캐시에서 조회하고 없으면 loader 결과를 저장 (loader 가 null 을 반환하면 저장하지 않음)
+     * loader 는 백그라운드 갱신 시 다른 스레드에서 실행될 수 있으므로 호출한 쪽의 트랜잭션에 기대면 안 됩니다.
+     */
+    public V get(String key, Supplier<V> loader) {
+        Entry<V> entry = localCache.getIfPresent(key);
+        if (entry != null) {
+            if (ticker.read() - entry.loadedAt() >= refreshAfterNanos) {
+                refreshAsync(key, loader);
+            }
+            return entry.value();
+        }
+        return loadShared(key, () -> {
+            long version = invalidationVersion(key);
+            V value = getFromRedis(key);
+            if (value == null) {
+                value = loader.get();
+                if (value == null) {
+                    return null;
+                }
+                if (!store(key, value, version, true)) {
+                    return value;
+                }
+            }
+            store(key, value, version, false);
+            return value;
+        });
+    }
+
+    /**
+     * 여러 키를 한 번에 조회 (로컬 -> Redis MGET 한 번 -> 남은 키만 loader 한 번)
+     * loader 는 받은 키 중 찾은 것만 담은 Map 을 반환합니다. (없는 키는 저장하지 않음)
+     * 일괄 조회는 키별 single-flight / 미리 갱신을 하지 않습니다.
+     */
+    public Map<String, V> getAll(Collection<String> keys, Function<Collection<String>, Map<String, V>> loader) {
+        Map<String, V> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String key : keys) {
+            Entry<V> entry = localCache.getIfPresent(key);
+            if (entry != null) {
+                result.put(key, entry.value());
+            } else {
+                missing.add(key);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        Map<String, Long> versions = new HashMap<>();
+        missing.forEach(key -> versions.put(key, invalidationVersion(key)));
+        Map<String, V> fromRedis = getAllFromRedis(missing);
+        fromRedis.forEach((key, value) -> store(key, value, versions.get(key), false));
+        result.putAll(fromRedis);
+        missing.removeAll(fromRedis.keySet());
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        Map<String, V> loaded = loader.apply(missing);
+        if (!loaded.isEmpty()) {
+            Map<String, V> unchanged = new HashMap<>();
+            loaded.forEach((key, value) -> {
+                if (!isInvalidatedSince(key, versions.get(key))) {
+                    unchanged.put(key, value);
+                }
+            });
+            putAllToRedis(unchanged);
+            unchanged.forEach((key, value) -> store(key, value, versions.get(key), false));
+            result.putAll(loaded);
+        }
+        return result;
+    }
+
+    public void evict(String key) {
+        evictAll(List.of(key));
+    }
+
+    // 트랜잭션 커밋 후에 지워야 다른 요청이 커밋 전 데이터를 다시 캐싱하지 않음
+    public void evictAll(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> {
+            evictLocal(keys);
+            if (redisTemplate != null) {
+                try {
+                    redisTemplate.delete(keys.stream().map(this::redisKey).toList());
+                } catch (Exception e) {
+                    log.error("Failed to evict {} keys from redis cache {}", keys.size(), name, e);
+                }
+            }
+            invalidationBus.publish(name, keys);
+        });
+    }
+
+    // 진행 중인 로드/갱신 수 (테스트용)
+    int inFlightLoads() {
+        return inFlight.size();
+    }
+
+    // 다른 노드에서 무효화 메시지를 받았을 때도 사용 (Redis 는 보낸 쪽에서 이미 삭제함)
+    void evictLocal(Collection<String> keys) {
+        keys.forEach(key -> invalidations.incrementAndGet(stripe(key)));
+        localCache.invalidateAll(keys);
+    }
+
+    private long invalidationVersion(String key) {
+        return invalidations.get(stripe(key));
+    }
+
+    private boolean isInvalidatedSince(String key, long version) {
+        return invalidations.get(stripe(key)) != version;
+    }
+
+    private int stripe(String key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (INVALIDATION_STRIPES - 1);
+    }
+
+    /**
+     * 로드를 시작할 때(version) 이후 무효화가 없었을 때만 Redis(toRedis) 또는 로컬 캐시에 저장하고 저장했으면 true
+     * 저장 직후 무효화가 끼어들었으면 방금 저장한 값을 다시 지웁니다.
+     */
+    private boolean store(String key, V value, long version, boolean toRedis) {
+        if (isInvalidatedSince(key, version)) {
+            return false;
+        }
+        if (toRedis) {
+            putToRedis(key, value);
+        } else {
+            localCache.put(key, new Entry<>(value, ticker.read()));
+        }
+        if (isInvalidatedSince(key, version)) {
+            if (toRedis) {
+                deleteFromRedis(key);
+            } else {
+                localCache.invalidate(key);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    // 먼저 들어온 요청만 load 를 실행하고, 나머지는 같은 결과를 기다림
+    private V loadShared(String key, Supplier<V> load) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            return await(key, existing, load);
+        }
+
+        try {
+            V value = load.get();
+            future.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    // 만료 전에 원본(loader)에서 다시 읽어 로컬/Redis 를 갱신 (이미 로드 중이면 생략)
+    private void refreshAsync(String key, Supplier<V> loader) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, future) != null) {
+            return;
+        }
+
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    long version = invalidationVersion(key);
+                    V value = loader.get();
+                    if (value != null && store(key, value, version, true)) {
+                        store(key, value, version, false);
+                    }
+                    future.complete(value);
+                } catch (Exception e) {
+                    // 갱신에 실패해도 기존 값은 TTL 까지 그대로 사용 (기다리던 요청은 취소를 보고 직접 로드)
+                    log.error("Failed to refresh cache {} (key: {})", name, key, e);
+                    future.cancel(false);
+                } finally {
+                    inFlight.remove(key, future);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 갱신 대기열이 가득 참: 이번 갱신은 건너뛰고 만료 후 다시 로드
+            inFlight.remove(key, future);
+            future.cancel(false);
+        }
+    }
+
+    /**
+     * 다른 요청의 로드 결과를 기다림
+     * 로드한 쪽의 예외는 그대로 전달하고, 갱신이 취소되었거나 loadWaitTimeout 안에 끝나지 않으면 직접 로드합니다.
+     */
+    private V await(String key, CompletableFuture<V> future, Supplier<V> load) {
+        try {
+            return future.get(loadWaitTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (CancellationException e) {
+            return load.get();
+        } catch (TimeoutException e) {
+            // 끝나지 않는 future 가 다음 로드/갱신을 계속 막지 않도록 치움
+            log.warn("Timed out waiting for in-flight load of cache {} (key: {}), loading directly", name, key);
+            inFlight.remove(key, future);
+            return load.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private V getFromRedis(String key) {
+        if (redisTemplate == null) {
+            return null;
+        }
+        try {
+            return (V) redisTemplate.opsForValue().get(redisKey(key));
+        } catch (Exception e) {
+            // Redis 장애 시에는 DB 조회로 대체
+            log.error("Failed to read redis cache {} (key: {})", name, key, e);
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, V> getAllFromRedis(List<String> keys) {
+        Map<String, V> result = new HashMap<>();
+        if (redisTemplate == null) {
+            return result;
+        }
+        try {
+            List<Object> values = redisTemplate.opsForValue().multiGet(keys.stream().map(this::redisKey).toList());
+            if (values != null) {
+                for (int i = 0; i < keys.size(); i++) {
+                    if (values.get(i) != null) {
+                        result.put(keys.get(i), (V) values.get(i));
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to read {} keys from redis cache {}", keys.size(), name, e);
+        }
+        return result;
+    }
+
+    // 키마다 TTL 이 필요하므로 SET 을 파이프라인으로 한 번에 보냄
+    private void putAllToRedis(Map<String, V> values) {
+        if (redisTemplate == null) {
+            return;
+        }
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, W> Object execute(RedisOperations<K, W> operations) {
+                    RedisOperations<String, Object> redis = (RedisOperations<String, Object>) operations;
+                    values.forEach((key, value) -> redis.opsForValue().set(redisKey(key), value, redisTtl));
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            log.error("Failed to write {} keys to redis cache {}", values.size(), name, e);
+        }
+    }
+
+    private void putToRedis(String key, V value) {
+        if (redisTemplate == null) {
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(redisKey(key), value, redisTtl);
+        } catch (Exception e) {
+            log.error("Failed to write redis cache {} (key: {})", name, key, e);
+        }
+    }
+
+    private void deleteFromRedis(String key) {
+        try {
+            redisTemplate.delete(redisKey(key));
+        } catch (Exception e) {
+            log.error("Failed to evict redis cache {} (key: {})", name, key, e);
+        }
+    }
+
+    private String redisKey(String key) {
+        return "cache:" + name + ":" + key;
+    }
+
+    // 로컬 캐시 항목 (loadedAt: ticker 기준 적재 시각)
+    private record Entry<V>(V value, long loadedAt) {
+    }
+}
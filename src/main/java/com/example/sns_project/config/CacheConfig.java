@@ -0,0 +1,146 @@
+package com.example.sns_project.config;
+
+import com.example.sns_project.cache.CacheInvalidationBus;
+import com.example.sns_project.cache.TwoTierCache;
+import com.example.sns_project.dto.CommentThreadPage;
+import com.example.sns_project.dto.PostDetailDTO;
+import com.example.sns_project.dto.PostSummaryDTO;
+import com.example.sns_project.dto.UserDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Page;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 조회가 많은 데이터용 2단 캐시 설정 (크기/TTL 은 application.yml 의 sns.cache.*)
+@Configuration
+public class CacheConfig {
+
+    // 만료 전 백그라운드 갱신용 스레드 (큐가 가득 차면 RejectedExecutionException 으로 알리고, 캐시는 갱신을 건너뛰고 만료 후 다시 로드)
+    // Executor 빈으로 등록하면 스프링 기본 TaskExecutor 자동 설정이 꺼지므로 내부에서만 사용
+    private final ThreadPoolExecutor refreshExecutor;
+
+    public CacheConfig(@Value("${sns.cache.refresh-threads:2}") int refreshThreads) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.refreshExecutor = new ThreadPoolExecutor(refreshThreads, refreshThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1000),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "cache-refresh-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // 인기 게시물 페이지: 랭킹이 계속 바뀌므로 짧은 TTL 의 로컬 캐시만 사용
+    @Bean
+    public TwoTierCache<Page<PostSummaryDTO>> popularPostsCache(
+            @Value("${sns.cache.popular-posts.maximum-size:1000}") long maximumSize,
+            @Value("${sns.cache.popular-posts.local-ttl-seconds:5}") long localTtlSeconds,
+            @Value("${sns.cache.refresh-ahead-ratio:0.8}") double refreshAheadRatio,
+            CacheInvalidationBus cacheInvalidationBus,
+            MeterRegistry meterRegistry) {
+        return TwoTierCache.<Page<PostSummaryDTO>>builder()
+                .name("popularPosts")
+                .maximumSize(maximumSize)
+                .localTtl(Duration.ofSeconds(localTtlSeconds))
+                .refreshAheadRatio(refreshAheadRatio)
+                .refreshExecutor(refreshExecutor)
+                .invalidationBus(cacheInvalidationBus)
+                .meterRegistry(meterRegistry)
+                .build();
+    }
+
+    // 실시간 인기 게시물 목록 (limit 별)
+    @Bean
+    public TwoTierCache<List<PostSummaryDTO>> hotPostsCache(
+            @Value("${sns.cache.hot-posts.maximum-size:100}") long maximumSize,
+            @Value("${sns.cache.hot-posts.local-ttl-seconds:10}") long localTtlSeconds,
+            @Value("${sns.cache.refresh-ahead-ratio:0.8}") double refreshAheadRatio,
+            CacheInvalidationBus cacheInvalidationBus,
+            MeterRegistry meterRegistry) {
+        return TwoTierCache.<List<PostSummaryDTO>>builder()
+                .name("hotPosts")
+                .maximumSize(maximumSize)
+                .localTtl(Duration.ofSeconds(localTtlSeconds))
+                .refreshAheadRatio(refreshAheadRatio)
+                .refreshExecutor(refreshExecutor)
+                .invalidationBus(cacheInvalidationBus)
+                .meterRegistry(meterRegistry)
+                .build();
+    }
+
+    // 게시물 상세: 사용자별 좋아요 여부를 뺀 공통 부분만 캐싱
+    @Bean
+    public TwoTierCache<PostDetailDTO> postDetailCache(
+            @Value("${sns.cache.post-detail.maximum-size:10000}") long maximumSize,
+            @Value("${sns.cache.post-detail.local-ttl-seconds:30}") long localTtlSeconds,
+            @Value("${sns.cache.post-detail.redis-ttl-seconds:300}") long redisTtlSeconds,
+            RedisTemplate<String, Object> redisTemplate,
+            CacheInvalidationBus cacheInvalidationBus,
+            MeterRegistry meterRegistry) {
+        return TwoTierCache.<PostDetailDTO>builder()
+                .name("postDetail")
+                .maximumSize(maximumSize)
+                .localTtl(Duration.ofSeconds(localTtlSeconds))
+                .redisTemplate(redisTemplate)
+                .redisTtl(Duration.ofSeconds(redisTtlSeconds))
+                .invalidationBus(cacheInvalidationBus)
+                .meterRegistry(meterRegistry)
+                .build();
+    }
+
+    // 게시물별 댓글 스레드 앞쪽 페이지 (루트 댓글 + 대댓글 미리보기)
+    @Bean
+    public TwoTierCache<CommentThreadPage> commentThreadCache(
+            @Value("${sns.cache.comment-thread.maximum-size:10000}") long maximumSize,
+            @Value("${sns.cache.comment-thread.local-ttl-seconds:60}") long localTtlSeconds,
+            @Value("${sns.cache.comment-thread.redis-ttl-seconds:300}") long redisTtlSeconds,
+            RedisTemplate<String, Object> redisTemplate,
+            CacheInvalidationBus cacheInvalidationBus,
+            MeterRegistry meterRegistry) {
+        return TwoTierCache.<CommentThreadPage>builder()
+                .name("commentThread")
+                .maximumSize(maximumSize)
+                .localTtl(Duration.ofSeconds(localTtlSeconds))
+                .redisTemplate(redisTemplate)
+                .redisTtl(Duration.ofSeconds(redisTtlSeconds))
+                .invalidationBus(cacheInvalidationBus)
+                .meterRegistry(meterRegistry)
+                .build();
+    }
+
+    // 사용자 요약 정보 (id, username, email)
+    @Bean
+    public TwoTierCache<UserDTO> userSummaryCache(
+            @Value("${sns.cache.user-summary.maximum-size:10000}") long maximumSize,
+            @Value("${sns.cache.user-summary.local-ttl-seconds:60}") long localTtlSeconds,
+            @Value("${sns.cache.user-summary.redis-ttl-seconds:600}") long redisTtlSeconds,
+            RedisTemplate<String, Object> redisTemplate,
+            CacheInvalidationBus cacheInvalidationBus,
+            MeterRegistry meterRegistry) {
+        return TwoTierCache.<UserDTO>builder()
+                .name("userSummary")
+                .maximumSize(maximumSize)
+                .localTtl(Duration.ofSeconds(localTtlSeconds))
+                .redisTemplate(redisTemplate)
+                .redisTtl(Duration.ofSeconds(redisTtlSeconds))
+                .invalidationBus(cacheInvalidationBus)
+                .meterRegistry(meterRegistry)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdownRefreshExecutor() {
+        refreshExecutor.shutdownNow();
+    }
+}
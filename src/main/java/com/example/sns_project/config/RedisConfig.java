@@ -1,10 +1,17 @@
 package com.example.sns_project.config;
 
+import com.example.sns_project.cache.CacheInvalidationBus;
+import com.example.sns_project.service.FriendGraphIndex;
+import com.example.sns_project.service.LikeFilter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializer;
 
@@ -15,8 +22,11 @@ public class RedisConfig {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(redisConnectionFactory);
 
-        // JSON 직렬화 설정
+        // JSON 직렬화 설정 (캐시 DTO 의 LocalDateTime 필드 처리를 위해 JavaTimeModule 등록)
         GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer();
+        serializer.configure(objectMapper -> objectMapper
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
 
         template.setKeySerializer(RedisSerializer.string());
         template.setValueSerializer(serializer);
@@ -25,4 +35,18 @@ public class RedisConfig {
 
         return template;
     }
+
+    // 캐시 무효화 / 좋아요 필터 / 친구 관계 인덱스 갱신 메시지 구독
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                        CacheInvalidationBus cacheInvalidationBus,
+                                                                        LikeFilter likeFilter,
+                                                                        FriendGraphIndex friendGraphIndex) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(cacheInvalidationBus, new ChannelTopic(CacheInvalidationBus.CHANNEL));
+        container.addMessageListener(likeFilter, new ChannelTopic(LikeFilter.CHANNEL));
+        container.addMessageListener(friendGraphIndex, new ChannelTopic(FriendGraphIndex.CHANNEL));
+        return container;
+    }
 }
@@ -1,6 +1,8 @@
 package com.example.sns_project.config;
 
+import com.example.sns_project.websocket.StompAuthChannelInterceptor;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
@@ -9,12 +11,20 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+
+    private final StompAuthChannelInterceptor stompAuthChannelInterceptor;
+
+    public WebSocketConfig(StompAuthChannelInterceptor stompAuthChannelInterceptor) {
+        this.stompAuthChannelInterceptor = stompAuthChannelInterceptor;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // 메시지 브로커를 설정하는 메서드
         // 클라이언트에게 메시지를 전송할 경로를 설정
-        config.enableSimpleBroker("/topic"); // 메시지 브로커 경로 설정
+        config.enableSimpleBroker("/topic", "/queue"); // 메시지 브로커 경로 설정 (/queue: 사용자별 메시지)
         config.setApplicationDestinationPrefixes("/app"); // 애플리케이션에서 사용할 경로 접두사 설정
+        config.setUserDestinationPrefix("/user"); // 클라이언트는 /user/queue/notifications 를 구독
     }
 
     @Override
@@ -24,5 +34,9 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.addEndpoint("/ws").setAllowedOrigins("*").withSockJS(); // SockJS를 사용하여 WebSocket 연결
     }
 
-    // 앞으로: WebSocket 핸들러 및 인증 설정 추가 필요
-}
\ No newline at end of file
+    // CONNECT 시 JWT 인증
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(stompAuthChannelInterceptor);
+    }
+}
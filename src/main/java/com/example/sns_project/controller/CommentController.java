@@ -2,6 +2,9 @@ package com.example.sns_project.controller;
 
 import com.example.sns_project.dto.CommentDTO;
 import com.example.sns_project.dto.CommentHierarchyDTO;
+import com.example.sns_project.dto.CommentThreadPage;
+import com.example.sns_project.dto.CursorPage;
+import com.example.sns_project.dto.MultiGetResponse;
 import com.example.sns_project.projection.CommentHierarchyProjection;
 import com.example.sns_project.service.CommentService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -42,6 +45,13 @@ public class CommentController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdComment);
     }
 
+    @GetMapping(params = "ids")
+    @Operation(summary = "여러 댓글 조회", description = "ids=1,2,3 처럼 최대 100개의 댓글을 한 번에 조회합니다. 요청 순서대로 반환하며 없는 댓글은 null 과 missingIds 로 표시합니다.")
+    public ResponseEntity<MultiGetResponse<CommentHierarchyDTO>> getCommentsByIds(
+            @Parameter(description = "댓글 ID 목록") @RequestParam("ids") List<Long> ids) {
+        return ResponseEntity.ok(commentService.getCommentsByIds(ids));
+    }
+
     @GetMapping("/post/{postId}")
     @Operation(summary = "루트 댓글 조회", description = "게시글의 루트 댓글을 페이징하여 조회합니다.")
     public ResponseEntity<Page<CommentHierarchyDTO>> getRootComments(
@@ -52,6 +62,34 @@ public class CommentController {
         return ResponseEntity.ok(commentService.getRootComments(postId, pageable));
     }
 
+    @GetMapping("/post/{postId}/thread")
+    @Operation(summary = "댓글 스레드 조회", description = "게시글의 루트 댓글을 작성순으로 페이징하고, 루트 댓글마다 가장 먼저 달린 대댓글 2개를 함께 반환합니다.")
+    public ResponseEntity<CommentThreadPage> getCommentThread(
+            @PathVariable Long postId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(commentService.getCommentThread(postId, page, size));
+    }
+
+    @GetMapping("/post/{postId}/cursor")
+    @Operation(summary = "루트 댓글 커서 조회", description = "게시글의 루트 댓글을 커서 기반으로 조회합니다. 응답의 nextCursor 를 다음 요청에 전달합니다.")
+    public ResponseEntity<CursorPage<CommentHierarchyDTO>> getRootCommentsByCursor(
+            @PathVariable Long postId,
+            @Parameter(description = "이전 응답의 nextCursor (첫 페이지는 생략)")
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(commentService.getRootCommentsByCursor(postId, cursor, size));
+    }
+
+    @GetMapping("/{commentId}/replies/cursor")
+    @Operation(summary = "대댓글 커서 조회", description = "특정 댓글의 직계 대댓글을 커서 기반으로 조회합니다.")
+    public ResponseEntity<CursorPage<CommentHierarchyDTO>> getChildCommentsByCursor(
+            @PathVariable Long commentId,
+            @Parameter(description = "이전 응답의 nextCursor (첫 페이지는 생략)")
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(commentService.getChildCommentsByCursor(commentId, cursor, size));
+    }
 
     @GetMapping("/{commentId}/replies")
     @Operation(summary = "자식 댓글 전체 조회", description = "특정 댓글의 모든 하위 댓글을 조회합니다.")
@@ -124,6 +162,7 @@ public class CommentController {
                 .authorName(projection.getAuthorName())
                 .depth(projection.getHierarchyDepth())
                 .replyCount(projection.getReplyCount() != null ? projection.getReplyCount() : 0L) // 널 체크 추가
+                .likeCount(projection.getLikeCount() != null ? projection.getLikeCount() : 0L)
                 .build();
     }
 }
\ No newline at end of file
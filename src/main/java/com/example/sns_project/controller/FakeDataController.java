@@ -1,6 +1,8 @@
 package com.example.sns_project.controller;
 
+import com.example.sns_project.service.CounterService;
 import com.example.sns_project.service.FakeDataService;
+import com.example.sns_project.service.PopularPostRankingService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -22,6 +24,8 @@ import java.util.Map;
 public class FakeDataController {
 
     private final FakeDataService fakeDataService;
+    private final PopularPostRankingService popularPostRankingService;
+    private final CounterService counterService;
 
     @PostMapping("/generate/all")
     @Operation(summary = "전체 더미 데이터 생성",
@@ -126,6 +130,10 @@ public class FakeDataController {
             statistics.put("commentLikeGenerationTime", System.currentTimeMillis() - commentLikeStartTime);
             log.info("댓글 좋아요 생성 완료");
 
+            // 더미 데이터는 서비스 로직을 거치지 않으므로 인기 게시물 랭킹과 카운터를 다시 만듦
+            popularPostRankingService.rebuildRanking();
+            counterService.recalculateAll();
+
             // 최종 통계
             long totalTime = System.currentTimeMillis() - totalStartTime;
             statistics.put("totalExecutionTimeMs", totalTime);
@@ -356,4 +364,44 @@ public class FakeDataController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
         }
     }
-}
\ No newline at end of file
+
+    @PostMapping("/rebuild/popular-ranking")
+    @Operation(summary = "인기 게시물 랭킹 재구성",
+            description = "개별 생성 API로 만든 더미 데이터를 인기 게시물 랭킹(Redis)에 반영합니다.")
+    public ResponseEntity<Map<String, Object>> rebuildPopularRanking() {
+        try {
+            long startTime = System.currentTimeMillis();
+
+            popularPostRankingService.rebuildRanking();
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("executionTimeMs", System.currentTimeMillis() - startTime);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            log.error("인기 게시물 랭킹 재구성 실패: {}", e.getMessage(), e);
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        }
+    }
+
+    @PostMapping("/rebuild/counters")
+    @Operation(summary = "좋아요/댓글 카운터 재계산",
+            description = "게시물/댓글의 반정규화 카운터(좋아요 수, 댓글 수, 대댓글 수)를 실제 데이터 기준으로 다시 계산합니다.")
+    public ResponseEntity<Map<String, Object>> recalculateCounters() {
+        try {
+            long startTime = System.currentTimeMillis();
+
+            counterService.recalculateAll();
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("executionTimeMs", System.currentTimeMillis() - startTime);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            log.error("카운터 재계산 실패: {}", e.getMessage(), e);
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.sns_project.controller;
 
 // 알림 관련 API를 처리하는 컨트롤러
+import com.example.sns_project.dto.CursorPage;
 import com.example.sns_project.dto.NotificationDTO;
 import com.example.sns_project.service.NotificationService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -28,6 +29,26 @@ public class NotificationController {
         return ResponseEntity.ok(notificationService.getUserNotifications(userId));
     }
 
+    @GetMapping("/cursor")
+    @Operation(summary = "내 알림 커서 조회", description = "현재 사용자의 알림을 최신순으로 커서 기반 조회합니다.")
+    public ResponseEntity<CursorPage<NotificationDTO>> getMyNotificationsByCursor(
+            HttpServletRequest request,
+            @Parameter(description = "이전 응답의 nextCursor (첫 페이지는 생략)")
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        Long userId = (Long) request.getAttribute("userId");
+        return ResponseEntity.ok(notificationService.getUserNotificationsByCursor(userId, cursor, size));
+    }
+
+    @GetMapping("/recent")
+    @Operation(summary = "최근 알림 조회", description = "현재 사용자의 최근 알림을 최신순으로 조회합니다. (기본 20개)")
+    public ResponseEntity<List<NotificationDTO>> getRecentNotifications(
+            HttpServletRequest request,
+            @RequestParam(defaultValue = "20") int size) {
+        Long userId = (Long) request.getAttribute("userId");
+        return ResponseEntity.ok(notificationService.getRecentNotifications(userId, size));
+    }
+
     @GetMapping("/unread")
     @Operation(summary = "읽지 않은 알림 조회", description = "현재 사용자의 읽지 않은 알림을 조회합니다.")
     public ResponseEntity<List<NotificationDTO>> getUnreadNotifications(HttpServletRequest request) {
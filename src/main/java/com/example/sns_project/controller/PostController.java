@@ -1,10 +1,16 @@
 package com.example.sns_project.controller;
 
 import com.example.sns_project.dto.CommentDTO;
+import com.example.sns_project.dto.CursorPage;
+import com.example.sns_project.dto.MultiGetResponse;
 import com.example.sns_project.dto.PostDTO;
 import com.example.sns_project.dto.PostDetailDTO;
+import com.example.sns_project.dto.PostSummaryDTO;
 import com.example.sns_project.exception.ForbiddenException;
 import com.example.sns_project.service.PostService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.Parameters;
@@ -17,9 +23,13 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 import static com.example.sns_project.util.SortUtils.getSortOrder;
@@ -30,9 +40,11 @@ import static com.example.sns_project.util.SortUtils.getSortOrder;
 public class PostController {
 
     private final PostService postService;
+    private final ObjectMapper objectMapper;
 
-    public PostController(PostService postService) {
+    public PostController(PostService postService, ObjectMapper objectMapper) {
         this.postService = postService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -46,6 +58,15 @@ public class PostController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdPost);
     }
 
+    @GetMapping(params = "ids")
+    @Operation(summary = "여러 게시글 조회", description = "ids=1,2,3 처럼 최대 100개의 게시글을 한 번에 조회합니다. 요청 순서대로 반환하며 없는 게시글은 null 과 missingIds 로 표시합니다.")
+    public ResponseEntity<MultiGetResponse<PostDetailDTO>> getPostsByIds(
+            @Parameter(description = "게시글 ID 목록") @RequestParam("ids") List<Long> ids,
+            HttpServletRequest request) {
+        Long userId = (Long) request.getAttribute("userId");
+        return ResponseEntity.ok(postService.getPostsByIds(ids, userId));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<PostDetailDTO> getPostById(
             @PathVariable("id") Long id,
@@ -89,32 +110,94 @@ public class PostController {
 
     @GetMapping("/user/{userId}")
     @Operation(summary = "특정 사용자의 게시글 조회", description = "특정 사용자가 작성한 모든 게시글을 조회합니다.")
-    public ResponseEntity<List<PostDTO>> getPostsByUserId(
-            @Parameter(description = "사용자 ID") @PathVariable("userId") Long userId) {
-        List<PostDTO> posts = postService.getPostByUserId(userId);
+    public ResponseEntity<List<PostSummaryDTO>> getPostsByUserId(
+            @Parameter(description = "사용자 ID") @PathVariable("userId") Long userId,
+            HttpServletRequest request) {
+        Long viewerId = (Long) request.getAttribute("userId");
+        List<PostSummaryDTO> posts = postService.getPostByUserId(userId, viewerId);
         return ResponseEntity.ok(posts);
     }
 
+    /**
+     * 전체 게시글을 JSON 배열로 스트리밍 (전체 목록을 메모리에 만들지 않음)
+     * format=ndjson 이면 한 줄에 게시글 하나씩 application/x-ndjson 으로 보냅니다.
+     */
     @GetMapping("/all")
-    @Operation(summary = "게시글 목록 조회", description = "모든 게시글을 조회합니다.")
-    public ResponseEntity<List<PostDTO>> getAllPosts() {
-        List<PostDTO> posts = postService.getAllPosts();
-        return ResponseEntity.ok(posts);
+    @Operation(summary = "게시글 목록 조회", description = "모든 게시글을 스트리밍으로 조회합니다. format=ndjson 이면 한 줄에 하나씩 보냅니다.")
+    public ResponseEntity<StreamingResponseBody> getAllPosts(
+            @Parameter(description = "응답 형식 (json / ndjson)") @RequestParam(defaultValue = "json") String format,
+            HttpServletRequest request) {
+        Long userId = (Long) request.getAttribute("userId");
+        boolean ndjson = "ndjson".equalsIgnoreCase(format);
+
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                // 중간에 실패하면 배열을 닫지 않아 클라이언트가 잘린 응답을 정상 응답으로 오인하지 않게 함
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+                if (ndjson) {
+                    generator.setRootValueSeparator(new SerializedString("\n"));
+                } else {
+                    generator.writeStartArray();
+                }
+                postService.streamAllPosts(userId, posts -> {
+                    try {
+                        for (PostSummaryDTO post : posts) {
+                            generator.writeObject(post);
+                        }
+                        generator.flush();  // chunk 마다 클라이언트로 내보내 응답 버퍼가 커지지 않게 함
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if (ndjson) {
+                    generator.writeRaw('\n');
+                } else {
+                    generator.writeEndArray();
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                .body(body);
     }
 
     @GetMapping("/paged")
     @Operation(summary = "게시글 목록 페이징 조회", description = "페이지 단위로 게시글을 조회합니다.")
-    public ResponseEntity<Page<PostDTO>> getPostsByPagination(
+    public ResponseEntity<Page<PostSummaryDTO>> getPostsByPagination(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
-            @RequestParam(defaultValue = "DESC") String direction) {
+            @RequestParam(defaultValue = "DESC") String direction,
+            HttpServletRequest request) {
+        Long userId = (Long) request.getAttribute("userId");
 
         Sort sort = Sort.by(Sort.Direction.valueOf(direction.toUpperCase()), "createdDate");
         PageRequest pageRequest = PageRequest.of(page, size, sort);
-        Page<PostDTO> posts = postService.getPostsByPagination(pageRequest);
+        Page<PostSummaryDTO> posts = postService.getPostsByPagination(pageRequest, userId);
         return ResponseEntity.ok(posts);
     }
 
+    @GetMapping("/cursor")
+    @Operation(summary = "게시글 목록 커서 조회", description = "커서 기반으로 최신 게시글을 조회합니다. 응답의 nextCursor 를 다음 요청에 전달합니다.")
+    public ResponseEntity<CursorPage<PostSummaryDTO>> getPostsByCursor(
+            @Parameter(description = "이전 응답의 nextCursor (첫 페이지는 생략)")
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            HttpServletRequest request) {
+        Long userId = (Long) request.getAttribute("userId");
+        return ResponseEntity.ok(postService.getPostsByCursor(cursor, size, userId));
+    }
+
+    @GetMapping("/timeline")
+    @Operation(summary = "홈 타임라인 조회", description = "본인과 친구들의 게시글을 최신순으로 조회합니다. 응답의 nextCursor 를 다음 요청에 전달합니다.")
+    public ResponseEntity<CursorPage<PostSummaryDTO>> getHomeTimeline(
+            @Parameter(description = "이전 응답의 nextCursor (첫 페이지는 생략)")
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            HttpServletRequest request) {
+        Long userId = (Long) request.getAttribute("userId");
+        return ResponseEntity.ok(postService.getHomeTimeline(userId, cursor, size));
+    }
+
     @PostMapping("/{postId}/like")
     @Operation(summary = "게시글 좋아요", description = "특정 게시글에 좋아요를 추가합니다.")
     public ResponseEntity<Void> likePost(
@@ -154,10 +237,12 @@ public class PostController {
             @Parameter(name = "sort", description = "정렬 기준 (예: id,desc / createdDate,asc)",
                     schema = @Schema(type = "string", defaultValue = "id,desc"))
     })
-    public ResponseEntity<Page<PostDTO>> getPopularPosts(
+    public ResponseEntity<Page<PostSummaryDTO>> getPopularPosts(
             @PageableDefault(page = 0, size = 10)
-            Pageable pageable) {
-        return ResponseEntity.ok(postService.getPopularPosts(pageable));
+            Pageable pageable,
+            HttpServletRequest request) {
+        Long userId = (Long) request.getAttribute("userId");
+        return ResponseEntity.ok(postService.getPopularPosts(pageable, userId));
     }
 
     /**
@@ -165,10 +250,12 @@ public class PostController {
      */
     @GetMapping("/hot")
     @Operation(summary = "실시간 인기 게시글 조회", description = "최근 24시간 동안의 활동(좋아요, 댓글)을 기준으로 인기 게시글을 조회합니다.")
-    public ResponseEntity<List<PostDTO>> getHotPosts(
+    public ResponseEntity<List<PostSummaryDTO>> getHotPosts(
             @Parameter(description = "조회할 게시글 수 (기본값: 10)")
-            @RequestParam(defaultValue = "10") int limit) {
-        return ResponseEntity.ok(postService.getHotPosts(limit));
+            @RequestParam(defaultValue = "10") int limit,
+            HttpServletRequest request) {
+        Long userId = (Long) request.getAttribute("userId");
+        return ResponseEntity.ok(postService.getHotPosts(limit, userId));
     }
 
 //    @PostMapping("/{postId}/comments")
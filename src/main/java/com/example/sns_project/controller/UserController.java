@@ -1,6 +1,7 @@
 package com.example.sns_project.controller;
 
 // 사용자 관련 API를 처리하는 컨트롤러
+import com.example.sns_project.dto.MultiGetResponse;
 import com.example.sns_project.dto.UserDTO;
 import com.example.sns_project.dto.UserPasswordUpdateDTO; // 비밀번호 수정 DTO 추가
 import com.example.sns_project.service.UserService;
@@ -9,6 +10,9 @@ import io.swagger.v3.oas.annotations.Parameter;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/users")
 public class UserController {
@@ -26,6 +30,13 @@ public class UserController {
         return ResponseEntity.ok(userService.getUserById(userId));
     }
 
+    @GetMapping(params = "ids")
+    @Operation(summary = "여러 사용자 정보 조회", description = "ids=1,2,3 처럼 최대 100명의 기본 정보를 한 번에 조회합니다. 요청 순서대로 반환하며 없는 사용자는 null 과 missingIds 로 표시합니다.")
+    public ResponseEntity<MultiGetResponse<UserDTO>> getUsersInfo(
+            @Parameter(description = "사용자 ID 목록") @RequestParam("ids") List<Long> ids) {
+        return ResponseEntity.ok(userService.getPublicUsersInfo(ids));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "다른 사용자 정보 조회", description = "다른 사용자의 기본 정보를 조회합니다.")
     public ResponseEntity<UserDTO> getOtherUserInfo(
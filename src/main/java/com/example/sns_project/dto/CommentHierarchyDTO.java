@@ -22,6 +22,7 @@ public class CommentHierarchyDTO {
     private Long authorId;
     private String authorName;
     private long replyCount;  // 대댓글 수
+    private long likeCount;   // 좋아요 수
     private List<CommentHierarchyDTO> replies = new ArrayList<>();
 
     public CommentHierarchyDTO(
@@ -29,7 +30,7 @@ public class CommentHierarchyDTO {
             LocalDateTime createdAt, LocalDateTime modifiedDate,
             int depth, Long parentCommentId,
             Long authorId, String authorName,
-            long replyCount) {
+            long replyCount, long likeCount) {
         this.id = id;
         this.postId = postId;
         this.content = content;
@@ -40,5 +41,6 @@ public class CommentHierarchyDTO {
         this.authorId = authorId;
         this.authorName = authorName;
         this.replyCount = replyCount;
+        this.likeCount = likeCount;
     }
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.example.sns_project.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 게시물 댓글 스레드 한 페이지 (루트 댓글 작성순 + 루트마다 가장 먼저 달린 대댓글 미리보기)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CommentThreadPage {
+    private Long postId;
+    private int page;                 // 페이지 번호 (0부터)
+    private int size;                 // 페이지 크기
+    private boolean hasNext;          // 다음 페이지 존재 여부
+    private List<CommentHierarchyDTO> comments = new ArrayList<>();
+}
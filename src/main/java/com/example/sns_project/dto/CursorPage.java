@@ -0,0 +1,29 @@
+package com.example.sns_project.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+// 커서 기반 페이징 응답 (전체 개수는 계산하지 않음)
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> content;      // 현재 페이지 데이터
+    private String nextCursor;    // 다음 페이지 요청 시 전달할 커서 (마지막 페이지면 null)
+    private boolean hasNext;      // 다음 페이지 존재 여부
+
+    /**
+     * size + 1 개를 조회한 결과로 페이지를 만듭니다.
+     * 한 개가 더 조회되었다면 다음 페이지가 있는 것으로 보고 마지막 항목 기준으로 커서를 만듭니다.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, String> cursorExtractor) {
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? cursorExtractor.apply(content.get(content.size() - 1)) : null;
+        return new CursorPage<>(content, nextCursor, hasNext);
+    }
+}
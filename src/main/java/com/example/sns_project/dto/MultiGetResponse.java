@@ -0,0 +1,46 @@
+package com.example.sns_project.dto;
+
+import com.example.sns_project.exception.ApiException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 여러 ID 일괄 조회 응답
+ * items 는 요청한 ID 순서와 같고, 없는 ID 자리는 null 이며 그 ID 는 missingIds 에도 담깁니다.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class MultiGetResponse<T> {
+    public static final int MAX_IDS = 100;  // 한 번에 조회할 수 있는 최대 ID 수
+
+    private List<T> items;
+    private List<Long> missingIds;
+
+    // 요청 ID 검증 (1 ~ MAX_IDS 개) 후 중복을 뺀 조회 대상 ID
+    public static List<Long> distinctIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty() || ids.size() > MAX_IDS) {
+            throw new ApiException("ids 는 1 ~ " + MAX_IDS + "개까지 조회할 수 있습니다.");
+        }
+        return ids.stream().filter(Objects::nonNull).distinct().toList();
+    }
+
+    public static <T> MultiGetResponse<T> of(List<Long> ids, Map<Long, T> found) {
+        List<T> items = new ArrayList<>(ids.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : ids) {
+            T item = found.get(id);
+            items.add(item);
+            if (item == null) {
+                missingIds.add(id);
+            }
+        }
+        return new MultiGetResponse<>(items, missingIds);
+    }
+}
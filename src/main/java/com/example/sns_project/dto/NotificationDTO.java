@@ -7,6 +7,8 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.util.List;
+
 // 알림 정보를 전송하기 위한 데이터 전송 객체
 @Getter
 @Setter
@@ -26,6 +28,14 @@ public class NotificationDTO {
 
     private String notificationType; // 알림 유형
 
+    private String targetType; // 묶음 알림 대상 종류 (POST, COMMENT)
+
+    private Long targetId; // 묶음 알림 대상 ID
+
+    private int actorCount = 1; // 묶인 이벤트 수
+
+    private List<String> recentActors = List.of(); // 최근 행위자 이름 (최신순)
+
     // 이 생성자 추가
     public NotificationDTO(Long id, String message, Long userId, boolean isRead) {
         this.id = id;
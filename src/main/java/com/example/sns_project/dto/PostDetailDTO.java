@@ -1,27 +1,33 @@
 package com.example.sns_project.dto;
 
 import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
 
 import java.time.LocalDateTime;
 
 @Getter
+@Setter
+@NoArgsConstructor
 public class PostDetailDTO {
     private Long id;
     private String title;
     private String content;
     private UserDTO author;
     private Long likeCount;
+    private Long commentCount;
     private boolean isLikedByUser;
     private LocalDateTime createdDate;
 
     public PostDetailDTO(Long id, String title, String content,
                          Long authorId, String authorUsername, String authorEmail,
-                         Long likeCount, boolean isLikedByUser, LocalDateTime createdDate) {
+                         Long likeCount, Long commentCount, boolean isLikedByUser, LocalDateTime createdDate) {
         this.id = id;
         this.title = title;
         this.content = content;
         this.author = new UserDTO(authorId, authorUsername, authorEmail);
         this.likeCount = likeCount;
+        this.commentCount = commentCount;
         this.isLikedByUser = isLikedByUser;
         this.createdDate = createdDate;
     }
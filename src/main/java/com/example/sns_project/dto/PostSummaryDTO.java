@@ -0,0 +1,51 @@
+package com.example.sns_project.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 게시물 목록용 요약 (본문 앞부분과 카운터만 포함)
+ * 본문 전체와 좋아요 누른 사용자 목록은 상세 조회(PostDetailDTO)에서만 읽습니다.
+ * likedByViewer 는 조회자마다 다르므로 캐시된 요약을 복사해서 채웁니다.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PostSummaryDTO {
+    public static final int EXCERPT_LENGTH = 200;  // PostRepository 요약 쿼리의 SUBSTRING 길이와 같아야 함
+
+    private Long id;
+    private String title;
+    private String excerpt;           // 본문 앞 EXCERPT_LENGTH 글자
+    private UserDTO author;
+    private Long likeCount;
+    private Long commentCount;
+    private boolean likedByViewer;    // 조회한 사용자가 좋아요를 눌렀는지
+    private LocalDateTime createdDate;
+
+    public PostSummaryDTO(Long id, String title, String excerpt,
+                          Long authorId, String authorUsername, String authorEmail,
+                          Long likeCount, Long commentCount, LocalDateTime createdDate) {
+        this.id = id;
+        this.title = title;
+        this.excerpt = excerpt;
+        this.author = new UserDTO(authorId, authorUsername, authorEmail);
+        this.likeCount = likeCount;
+        this.commentCount = commentCount;
+        this.createdDate = createdDate;
+    }
+
+    // 요청별 값(아직 반영되지 않은 카운터 증감분, 조회자 좋아요 여부)을 채운 복사본
+    public PostSummaryDTO withViewerState(long pendingLikes, long pendingComments, boolean likedByViewer) {
+        PostSummaryDTO copy = new PostSummaryDTO(id, title, excerpt,
+                author.getId(), author.getUsername(), author.getEmail(),
+                likeCount + pendingLikes, commentCount + pendingComments, createdDate);
+        copy.likedByViewer = likedByViewer;
+        return copy;
+    }
+}
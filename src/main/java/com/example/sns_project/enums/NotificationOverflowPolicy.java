@@ -0,0 +1,8 @@
+package com.example.sns_project.enums;
+
+// 알림 큐가 가득 찼을 때의 처리 방식
+public enum NotificationOverflowPolicy {
+    DROP_NEWEST,    // 새로 들어온 알림을 버림
+    DROP_OLDEST,    // 가장 오래된 알림을 버리고 새 알림을 넣음
+    BLOCK           // 자리가 날 때까지 잠시 대기 (시간 초과 시 새 알림을 버림)
+}
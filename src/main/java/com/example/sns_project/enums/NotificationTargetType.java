@@ -0,0 +1,7 @@
+package com.example.sns_project.enums;
+
+// 알림 대상 종류 (좋아요 알림 묶음의 기준)
+public enum NotificationTargetType {
+    POST,           // 게시물
+    COMMENT         // 댓글
+}
@@ -0,0 +1,21 @@
+package com.example.sns_project.init;
+
+import com.example.sns_project.service.CommentService;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+// 댓글 좋아요 유니크 인덱스 도입 전에 쌓인 중복 행을 기동 시 정리하고 인덱스를 만듦 (이미 있으면 조회 한 번으로 끝남)
+@Component
+public class CommentLikeIndexInitializer implements CommandLineRunner {
+
+    private final CommentService commentService;
+
+    public CommentLikeIndexInitializer(CommentService commentService) {
+        this.commentService = commentService;
+    }
+
+    @Override
+    public void run(String... args) {
+        commentService.ensureCommentLikeUniqueIndex();
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.sns_project.init;
+
+import com.example.sns_project.service.CommentService;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+// path 컬럼이 추가되기 전에 작성된 댓글의 경로를 기동 시 채움 (이미 모두 채워져 있으면 조회 한 번으로 끝남)
+// 경로가 빈 댓글은 하위 댓글 조회/구간 삭제에서 빠지므로 웹 서버가 요청을 받기 전에 끝냄
+@Component
+public class CommentPathInitializer implements SmartInitializingSingleton {
+
+    private final CommentService commentService;
+
+    public CommentPathInitializer(CommentService commentService) {
+        this.commentService = commentService;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        commentService.backfillPaths();
+    }
+}
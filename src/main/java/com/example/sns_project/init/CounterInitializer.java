@@ -0,0 +1,27 @@
+package com.example.sns_project.init;
+
+import com.example.sns_project.service.CounterService;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+// 좋아요/댓글 카운터 컬럼이 막 추가되었으면 기존 데이터로 한 번 채움 (이미 채워져 있으면 조회 한 번으로 끝남)
+// 채우기 전에 요청을 받으면 모든 게시물/댓글이 0 으로 보이므로 웹 서버가 요청을 받기 전에 실행
+@Log4j2
+@Component
+public class CounterInitializer implements SmartInitializingSingleton {
+
+    private final CounterService counterService;
+
+    public CounterInitializer(CounterService counterService) {
+        this.counterService = counterService;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (counterService.needsBackfill()) {
+            log.info("Counter columns are empty, recalculating from likes and comments");
+            counterService.recalculateAll();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.sns_project.init;
+
+import com.example.sns_project.service.FriendService;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+// 친구 관계를 (작은 ID, 큰 ID) 순서로 저장하기 전에 만든 행을 기동 시 정리 (이미 정리되어 있으면 조회 두 번으로 끝남)
+@Component
+public class FriendshipOrderInitializer implements CommandLineRunner {
+
+    private final FriendService friendService;
+
+    public FriendshipOrderInitializer(FriendService friendService) {
+        this.friendService = friendService;
+    }
+
+    @Override
+    public void run(String... args) {
+        friendService.normalizeFriendships();
+    }
+}
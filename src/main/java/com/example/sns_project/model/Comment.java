@@ -15,10 +15,15 @@ import java.util.Set;
 @AllArgsConstructor
 @NoArgsConstructor
 @Table(name = "comments", indexes = {
-        @Index(name = "idx_comment_post_parent", columnList = "post_id, parent_comment_id")
+        @Index(name = "idx_comment_post_parent_created", columnList = "post_id, parent_comment_id, created_date, id"),
+        @Index(name = "idx_comment_parent_created", columnList = "parent_comment_id, created_date, id"),
+        @Index(name = "idx_comment_path", columnList = "path")
 })
 public class Comment extends BaseEntity {
 
+    // 경로 한 단계의 길이 (ID 를 0 으로 채운 12자리 숫자)
+    public static final int PATH_SEGMENT_LENGTH = 12;
+
     @ManyToOne
     @JoinColumn(name = "post_id", nullable = false)
     private Post post;
@@ -43,6 +48,43 @@ public class Comment extends BaseEntity {
     @Column(nullable = false)
     private int depth = 0;
 
+    // 루트부터 자신까지의 ID 를 이어 붙인 경로 (예: 000000000012000000000345)
+    // 경로 순으로 정렬하면 부모 다음에 자식이 작성순으로 오고, 하위 댓글 전체가 경로 앞부분이 같은 하나의 구간이 됨
+    @Column(length = PATH_SEGMENT_LENGTH * 11)
+    private String path;
+
+    // 반정규화 카운터: CounterService 가 UPDATE ... SET x = x + ? 로만 변경 (엔티티 저장 시에는 건드리지 않음)
+    @Column(name = "like_count", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private long likeCount;
+
+    @Column(name = "reply_count", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private long replyCount;      // 직계 대댓글 수
+
+    // INSERT 로 ID 가 정해진 뒤 호출
+    // 조상 경로가 아직 없으면(채우기 전 데이터) 조상부터 만들어 함께 저장되게 하므로 경로가 비는 댓글이 생기지 않음
+    public void assignPath() {
+        ensurePath();
+    }
+
+    private String ensurePath() {
+        if (path == null) {
+            String segment = pathSegment(getId());
+            path = parentComment == null ? segment : parentComment.ensurePath() + segment;
+        }
+        return path;
+    }
+
+    public static String pathSegment(Long id) {
+        return String.format("%0" + PATH_SEGMENT_LENGTH + "d", id);
+    }
+
+    // 경로가 path 로 시작하는 구간의 끝 (':' 는 '9' 다음 문자)
+    public static String pathUpperBound(String path) {
+        return path + ":";
+    }
+
     public void addChildComment(Comment child) {
         childrenComments.add(child);
         child.setParentComment(this);
@@ -11,7 +11,11 @@ import lombok.Setter;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "comment_likes")
+@Table(name = "comment_likes",
+        indexes = {
+                @Index(name = "idx_comment_user", columnList = "comment_id,user_id", unique = true)
+        }
+)
 public class CommentLike  extends BaseEntity {
 
     // ID 필드는 BaseEntity에서 상속받음
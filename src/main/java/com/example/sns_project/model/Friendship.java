@@ -7,16 +7,45 @@ import lombok.Setter;
 @Setter
 @Getter
 @Entity
-@Table(name = "friendships")
+@Table(name = "friendships",
+        indexes = {
+                // 두 사용자 사이의 관계는 (작은 ID, 큰 ID) 한 행만 존재
+                @Index(name = "idx_friendships_users", columnList = "user1_id,user2_id", unique = true)
+        }
+)
 public class Friendship extends BaseEntity{
     // ID 필드는 BaseEntity에서 상속받음
 
 
     @ManyToOne
     @JoinColumn(name = "user1_id", nullable = false)
-    private User user1; // 친구 1
+    private User user1; // 친구 1 (ID 가 작은 쪽)
 
     @ManyToOne
     @JoinColumn(name = "user2_id", nullable = false)
-    private User user2; // 친구 2
+    private User user2; // 친구 2 (ID 가 큰 쪽)
+
+    // 두 사용자의 친구 관계 (순서와 관계없이 같은 행이 되도록 정렬)
+    public static Friendship between(User a, User b) {
+        Friendship friendship = new Friendship();
+        friendship.setUser1(a);
+        friendship.setUser2(b);
+        friendship.normalizeOrder();
+        return friendship;
+    }
+
+    // setter 로 직접 채운 경우에도 저장 전에 정렬
+    @Override
+    protected void onCreate() {
+        super.onCreate();
+        normalizeOrder();
+    }
+
+    private void normalizeOrder() {
+        if (user1.getId() > user2.getId()) {
+            User first = user2;
+            user2 = user1;
+            user1 = first;
+        }
+    }
 }
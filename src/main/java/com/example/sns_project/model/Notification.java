@@ -1,6 +1,7 @@
 package com.example.sns_project.model;
 
 // 알림 정보를 저장하는 엔티티 클래스
+import com.example.sns_project.enums.NotificationTargetType;
 import com.example.sns_project.enums.NotificationType;
 import jakarta.persistence.*;
 import lombok.Getter;
@@ -9,7 +10,10 @@ import lombok.Setter;
 @Setter
 @Getter
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+        @Index(name = "idx_notifications_user_id", columnList = "user_id, id"),
+        @Index(name = "idx_notifications_created_date", columnList = "created_date") // 보관 기간 정리용
+})
 public class Notification extends BaseEntity {
     // ID 필드는 BaseEntity에서 상속받음
 
@@ -28,5 +32,18 @@ public class Notification extends BaseEntity {
     @Column(name = "notification_type") // 알림 유형
     private NotificationType notificationType; // 알림 유형을 열거형으로 변경
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "target_type")
+    private NotificationTargetType targetType; // 묶음 알림 대상 종류 (게시물/댓글)
+
+    @Column(name = "target_id")
+    private Long targetId;        // 묶음 알림 대상 ID
+
+    @Column(name = "actor_count")
+    private Integer actorCount;   // 묶인 이벤트 수 (null 이면 1건)
+
+    @Column(name = "recent_actors", length = 500)
+    private String recentActors;  // 최근 행위자 이름 (최신순, JSON 배열 - RecentActors 로 변환)
+
     // JPA 어노테이션 추가 및 관계 설정
 }
@@ -16,7 +16,10 @@ import java.util.Set;
 @Setter
 @Getter
 @Entity
-@Table(name = "posts")
+@Table(name = "posts", indexes = {
+        @Index(name = "idx_posts_created_id", columnList = "created_date, id"),
+        @Index(name = "idx_posts_user_id", columnList = "user_id, id")   // 작성자별 최근 게시물 (홈 타임라인 재구성)
+})
 public class Post extends BaseEntity{
     // ID 필드는 BaseEntity에서 상속받음
 
@@ -40,6 +43,15 @@ public class Post extends BaseEntity{
     @OneToMany(mappedBy = "post", fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<Comment> comments = new HashSet<>();
 
+    // 반정규화 카운터: CounterService 가 UPDATE ... SET x = x + ? 로만 변경 (엔티티 저장 시에는 건드리지 않음)
+    @Column(name = "like_count", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private long likeCount;       // 좋아요 수
+
+    @Column(name = "comment_count", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private long commentCount;    // 댓글 수 (대댓글 포함)
+
     // Getter 및 Setter 메서드
 
     // 앞으로: JPA 어노테이션 추가 및 관계 설정
@@ -0,0 +1,181 @@
+package com.example.sns_project.notification;
+
+import com.example.sns_project.enums.NotificationTargetType;
+import com.example.sns_project.enums.NotificationType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 같은 대상에 대한 알림을 묶어서 한 건으로 저장 ("alice님 외 12명이 ...")
+ * (수신자, 알림 유형, 대상) 별로 첫 이벤트가 들어온 시점부터 window 동안 이벤트를 모은 뒤,
+ * 창이 닫히면 서로 다른 행위자 수와 최근 행위자 몇 명만 담은 알림 한 건을 {@link NotificationWriter} 로 넘깁니다.
+ * (같은 사람이 좋아요를 눌렀다 취소하기를 반복해도 한 명으로 셈)
+ * 인기 게시물의 좋아요가 수천 건이어도 창마다 한 건만 저장/전송되므로 테이블 증가량과 writer 부하가 크게 줄어듭니다.
+ *
+ * 창은 서버 메모리에만 있으므로 묶이는 범위는 서버 단위이고, 창이 닫히기 전에 프로세스가 죽으면 그 창의 알림은 유실됩니다.
+ * (정상 종료 시에는 열린 창을 모두 닫아 writer 에 넘김)
+ * 열린 창이 maxOpenWindows 개를 넘으면 새 대상은 묶지 않고 바로 보냅니다.
+ * 창마다 기억하는 행위자는 maxTrackedActors 명까지이고, 그 뒤로 처음 보는 행위자는 중복을 가리지 않고 셉니다.
+ */
+@Log4j2
+@Component
+public class NotificationCoalescer implements SmartLifecycle {
+
+    private final NotificationWriter notificationWriter;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxRecentActors;
+    private final int maxOpenWindows;
+    private final int maxTrackedActors;
+    private final Counter coalescedCounter;
+
+    private final ConcurrentHashMap<Key, Window> windows = new ConcurrentHashMap<>();
+    private volatile boolean running;
+
+    public NotificationCoalescer(NotificationWriter notificationWriter,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${sns.notifications.coalesce.enabled:true}") boolean enabled,
+                                 @Value("${sns.notifications.coalesce.window-seconds:60}") long windowSeconds,
+                                 @Value("${sns.notifications.coalesce.recent-actors:3}") int maxRecentActors,
+                                 @Value("${sns.notifications.coalesce.max-open-windows:100000}") int maxOpenWindows,
+                                 @Value("${sns.notifications.coalesce.max-tracked-actors:1000}") int maxTrackedActors) {
+        this.notificationWriter = notificationWriter;
+        this.enabled = enabled;
+        this.windowNanos = TimeUnit.SECONDS.toNanos(windowSeconds);
+        this.maxRecentActors = maxRecentActors;
+        this.maxOpenWindows = maxOpenWindows;
+        this.maxTrackedActors = maxTrackedActors;
+
+        meterRegistry.gauge("sns.notifications.coalesce.open-windows", windows, Map::size);
+        this.coalescedCounter = meterRegistry.counter("sns.notifications.coalesced");
+    }
+
+    /**
+     * 이벤트 한 건 추가
+     * action 은 행위자 이름 뒤에 붙는 문장 (예: "당신의 포스트에 좋아요를 눌렀습니다.")
+     */
+    public void add(Long userId, NotificationType notificationType,
+                    NotificationTargetType targetType, Long targetId,
+                    String actor, String action) {
+        Key key = new Key(userId, notificationType, targetType, targetId);
+        if (!enabled || !running || (windows.size() >= maxOpenWindows && !windows.containsKey(key))) {
+            Window single = new Window(action, System.nanoTime());
+            single.add(actor, maxRecentActors, maxTrackedActors);
+            notificationWriter.enqueue(toNotification(key, single));
+            return;
+        }
+
+        windows.compute(key, (k, window) -> {
+            if (window == null) {
+                window = new Window(action, System.nanoTime());
+            } else {
+                coalescedCounter.increment();
+            }
+            window.add(actor, maxRecentActors, maxTrackedActors);
+            return window;
+        });
+    }
+
+    // 기간이 지난 창을 닫아 writer 로 넘김
+    @Scheduled(fixedDelayString = "${sns.notifications.coalesce.sweep-interval-ms:1000}")
+    public void flushExpired() {
+        flush(System.nanoTime(), false);
+    }
+
+    private void flush(long now, boolean all) {
+        for (Key key : windows.keySet()) {
+            Window[] closed = new Window[1];
+            windows.computeIfPresent(key, (k, window) -> {
+                if (all || now - window.openedAt >= windowNanos) {
+                    closed[0] = window;
+                    return null;
+                }
+                return window;
+            });
+            if (closed[0] != null) {
+                notificationWriter.enqueue(toNotification(key, closed[0]));
+            }
+        }
+    }
+
+    // 행위자가 한 명이면 "alice님이 ...", 여럿이면 "alice님 외 12명이 ..."
+    private PendingNotification toNotification(Key key, Window window) {
+        String latestActor = window.recentActors.peekFirst();
+        String message = window.count > 1
+                ? latestActor + "님 외 " + (window.count - 1) + "명이 " + window.action
+                : latestActor + "님이 " + window.action;
+        return new PendingNotification(key.userId(), message, key.notificationType(), LocalDateTime.now(),
+                key.targetType(), key.targetId(), window.count, List.copyOf(window.recentActors));
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    // 열린 창을 모두 닫아 writer 에 넘김 (writer 보다 먼저 멈추도록 더 높은 phase)
+    @Override
+    public void stop() {
+        running = false;
+        flush(System.nanoTime(), true);
+        log.info("Flushed open notification windows on shutdown");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 2048;
+    }
+
+    private record Key(Long userId, NotificationType notificationType,
+                       NotificationTargetType targetType, Long targetId) {
+    }
+
+    // 창 하나 (ConcurrentHashMap.compute 안에서만 변경)
+    private static final class Window {
+        private final String action;
+        private final long openedAt;
+        private final Deque<String> recentActors = new ArrayDeque<>();
+        private final Set<String> actors = new HashSet<>(); // 지금까지 본 행위자 (maxTrackedActors 명까지)
+        private int count; // 서로 다른 행위자 수
+
+        private Window(String action, long openedAt) {
+            this.action = action;
+            this.openedAt = openedAt;
+        }
+
+        // 최근 행위자는 중복 없이 최신순으로 maxRecentActors 명까지 유지
+        private void add(String actor, int maxRecentActors, int maxTrackedActors) {
+            if (!actors.contains(actor)) {
+                count++;
+                if (actors.size() < maxTrackedActors) {
+                    actors.add(actor);
+                }
+            }
+            recentActors.remove(actor);
+            recentActors.addFirst(actor);
+            while (recentActors.size() > maxRecentActors) {
+                recentActors.removeLast();
+            }
+        }
+    }
+}
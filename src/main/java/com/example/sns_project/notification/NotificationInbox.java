@@ -0,0 +1,367 @@
+package com.example.sns_project.notification;
+
+import com.example.sns_project.dto.NotificationDTO;
+import com.example.sns_project.model.Notification;
+import com.example.sns_project.repository.NotificationRepository;
+import com.example.sns_project.util.TransactionUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 사용자별 읽지 않은 알림 수와 최근 알림 목록(최대 inboxSize 개)을 Redis 에 유지
+ * 뱃지 숫자와 최근 알림 목록 조회는 DB 를 거치지 않습니다.
+ *
+ * 키가 없으면 조회 시점에 DB 에서 한 번 읽어 채우고, 알림 저장 시에는 키가 있을 때만 갱신합니다.
+ * (키가 없는데 증가시키면 DB 보다 작은 값이 남기 때문)
+ * 모든 키에 TTL 을 두어 드물게 어긋난 값도 시간이 지나면 DB 기준으로 다시 맞춰집니다.
+ * 알림이 없는 사용자도 빈 표시 하나만 든 목록을 만들어 두므로 매 조회가 DB 로 가지 않습니다.
+ *
+ * 사용자별 변경 번호(seq)는 알림 추가/읽음/삭제마다 올라갑니다. DB 에서 읽어 채울 때는 읽기 전의 번호를 기억해 두고,
+ * 그 사이 번호가 바뀌었으면(채우기 전에 반영되지 못한 변경이 있으면) 채우지 않고 다음 조회 때 다시 읽습니다.
+ *
+ * 전체 발송처럼 모든 사용자의 값이 한 번에 바뀔 때는 키를 하나씩 지우지 않고 세대(generation) 번호를 올립니다.
+ * 키 이름에 세대가 들어가므로 이전 세대 키는 더 이상 읽히지 않고 TTL 로 사라집니다.
+ * 다른 서버는 세대 번호를 주기적으로 다시 읽으므로 그 사이(약 1초)에는 이전 값이 보일 수 있습니다.
+ */
+@Log4j2
+@Component
+public class NotificationInbox {
+
+    private static final String UNREAD_KEY_PREFIX = "notifications:unread:";
+    private static final String INBOX_KEY_PREFIX = "notifications:inbox:";
+    private static final String SEQ_KEY_PREFIX = "notifications:seq:";
+    private static final String GENERATION_KEY = "notifications:generation";
+    // 알림이 없는 사용자의 목록에 넣는 빈 표시 (조회 결과에서는 제외)
+    private static final String EMPTY_MARKER = "empty";
+
+    // KEYS: [읽지 않은 수 키, 최근 목록 키, 변경 번호 키] x 사용자 수
+    // ARGV: [목록 크기, TTL(초), 빈 표시, (사용자별) 알림 수 n, 알림 JSON n개 (오래된 것부터) ...]
+    private static final RedisScript<Long> APPEND_SCRIPT = new DefaultRedisScript<>("""
+            local size = tonumber(ARGV[1])
+            local ttl = tonumber(ARGV[2])
+            local a = 4
+            for i = 1, #KEYS, 3 do
+              local n = tonumber(ARGV[a])
+              a = a + 1
+              redis.call('INCR', KEYS[i + 2])
+              redis.call('EXPIRE', KEYS[i + 2], ttl)
+              if redis.call('EXISTS', KEYS[i]) == 1 then
+                redis.call('INCRBY', KEYS[i], n)
+              end
+              if redis.call('EXISTS', KEYS[i + 1]) == 1 then
+                redis.call('LREM', KEYS[i + 1], 0, ARGV[3])
+                for j = a, a + n - 1 do
+                  redis.call('LPUSH', KEYS[i + 1], ARGV[j])
+                end
+                redis.call('LTRIM', KEYS[i + 1], 0, size - 1)
+                redis.call('EXPIRE', KEYS[i + 1], ttl)
+              end
+              a = a + n
+            end
+            return 1
+            """, Long.class);
+
+    // KEYS: [읽지 않은 수 키, 최근 목록 키, 변경 번호 키], ARGV: [TTL(초)]
+    // 0 미만으로 내려가지 않게 감소 (키가 없으면 그대로 둠), 목록은 다시 읽게 지움
+    private static final RedisScript<Long> DECREMENT_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('INCR', KEYS[3])
+            redis.call('EXPIRE', KEYS[3], ARGV[1])
+            redis.call('DEL', KEYS[2])
+            local value = tonumber(redis.call('GET', KEYS[1]))
+            if value and value > 0 then
+              return redis.call('DECR', KEYS[1])
+            end
+            return -1
+            """, Long.class);
+
+    // KEYS: [변경 번호 키, 지울 키...], ARGV: [TTL(초)]
+    private static final RedisScript<Long> INVALIDATE_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('INCR', KEYS[1])
+            redis.call('EXPIRE', KEYS[1], ARGV[1])
+            for i = 2, #KEYS do
+              redis.call('DEL', KEYS[i])
+            end
+            return 1
+            """, Long.class);
+
+    // KEYS: [읽지 않은 수 키, 변경 번호 키], ARGV: [읽기 전 변경 번호, 읽지 않은 수, TTL(초)]
+    // 읽는 동안 변경이 없었을 때만 채움 (채웠으면 1)
+    private static final RedisScript<Long> POPULATE_COUNT_SCRIPT = new DefaultRedisScript<>("""
+            if (redis.call('GET', KEYS[2]) or '0') ~= ARGV[1] then
+              return 0
+            end
+            redis.call('SET', KEYS[1], ARGV[2], 'EX', ARGV[3], 'NX')
+            return 1
+            """, Long.class);
+
+    // KEYS: [최근 목록 키, 변경 번호 키], ARGV: [읽기 전 변경 번호, TTL(초), 빈 표시, 알림 JSON (최신순) ...]
+    private static final RedisScript<Long> POPULATE_INBOX_SCRIPT = new DefaultRedisScript<>("""
+            if (redis.call('GET', KEYS[2]) or '0') ~= ARGV[1] then
+              return 0
+            end
+            redis.call('DEL', KEYS[1])
+            if #ARGV > 3 then
+              redis.call('RPUSH', KEYS[1], unpack(ARGV, 4))
+            else
+              redis.call('RPUSH', KEYS[1], ARGV[3])
+            end
+            redis.call('EXPIRE', KEYS[1], ARGV[2])
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final NotificationRepository notificationRepository;
+    private final int inboxSize;
+    private final Duration ttl;
+    private volatile long generation;
+
+    public NotificationInbox(StringRedisTemplate stringRedisTemplate,
+                             ObjectMapper objectMapper,
+                             NotificationRepository notificationRepository,
+                             @Value("${sns.notifications.inbox.size:50}") int inboxSize,
+                             @Value("${sns.notifications.inbox.ttl-minutes:60}") long ttlMinutes) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.objectMapper = objectMapper;
+        this.notificationRepository = notificationRepository;
+        this.inboxSize = inboxSize;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+    }
+
+    // 다른 서버가 올린 세대 번호 반영
+    @Scheduled(fixedDelayString = "${sns.notifications.inbox.generation-refresh-ms:1000}")
+    public void refreshGeneration() {
+        try {
+            String value = stringRedisTemplate.opsForValue().get(GENERATION_KEY);
+            generation = value != null ? Long.parseLong(value) : 0L;
+        } catch (Exception e) {
+            log.warn("Failed to read notification inbox generation", e);
+        }
+    }
+
+    // 모든 사용자의 읽지 않은 수/최근 목록 무효화 (전체 발송 후)
+    public void invalidateAll() {
+        try {
+            Long next = stringRedisTemplate.opsForValue().increment(GENERATION_KEY);
+            if (next != null) {
+                generation = next;
+            }
+        } catch (Exception e) {
+            log.error("Failed to invalidate notification inboxes", e);
+        }
+    }
+
+    public int getInboxSize() {
+        return inboxSize;
+    }
+
+    // 저장된 알림 배치를 반영 (Lua 스크립트 한 번, 키가 있는 사용자만)
+    public void recordPersisted(List<NotificationDTO> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        try {
+            Map<Long, List<NotificationDTO>> byUser = notifications.stream()
+                    .collect(Collectors.groupingBy(NotificationDTO::getUserId, LinkedHashMap::new, Collectors.toList()));
+
+            List<String> keys = new ArrayList<>(byUser.size() * 3);
+            List<String> args = new ArrayList<>(notifications.size() + byUser.size() + 3);
+            args.add(String.valueOf(inboxSize));
+            args.add(String.valueOf(ttl.toSeconds()));
+            args.add(EMPTY_MARKER);
+            for (Map.Entry<Long, List<NotificationDTO>> entry : byUser.entrySet()) {
+                keys.add(unreadKey(entry.getKey()));
+                keys.add(inboxKey(entry.getKey()));
+                keys.add(seqKey(entry.getKey()));
+                // ID 를 모르면 목록 순서/커서를 보장할 수 없으므로 목록은 다시 읽도록 비움
+                if (entry.getValue().stream().anyMatch(notification -> notification.getId() == null)) {
+                    stringRedisTemplate.delete(inboxKey(entry.getKey()));
+                }
+                args.add(String.valueOf(entry.getValue().size()));
+                for (NotificationDTO notification : entry.getValue()) {
+                    args.add(toJson(notification));
+                }
+            }
+            stringRedisTemplate.execute(APPEND_SCRIPT, keys, args.toArray());
+        } catch (Exception e) {
+            // 반영하지 못한 사용자는 값이 어긋날 수 있으므로 키를 지워 DB 에서 다시 읽게 함
+            log.error("Failed to update notification inbox for {} notifications", notifications.size(), e);
+            evict(notifications.stream().map(NotificationDTO::getUserId).collect(Collectors.toSet()));
+        }
+    }
+
+    // 읽지 않은 알림 수 (키가 없으면 DB 에서 읽어 채움)
+    public long getUnreadCount(Long userId) {
+        List<String> values = stringRedisTemplate.opsForValue().multiGet(List.of(unreadKey(userId), seqKey(userId)));
+        String cached = values != null ? values.get(0) : null;
+        if (cached != null) {
+            return Long.parseLong(cached);
+        }
+        String seq = values != null ? values.get(1) : null;
+        long count = notificationRepository.countByUserIdAndIsRead(userId, false);
+        populateCount(userId, seq, count);
+        return count;
+    }
+
+    // 여러 사용자의 읽지 않은 알림 수 (MGET 한 번, 없는 사용자만 DB 집계)
+    public Map<Long, Long> getUnreadCounts(Collection<Long> userIds) {
+        List<Long> ids = new ArrayList<>(userIds);
+        List<String> keys = new ArrayList<>(ids.size() * 2);
+        for (Long userId : ids) {
+            keys.add(unreadKey(userId));
+            keys.add(seqKey(userId));
+        }
+        List<String> values = stringRedisTemplate.opsForValue().multiGet(keys);
+
+        Map<Long, Long> counts = new HashMap<>();
+        Map<Long, String> missing = new HashMap<>(); // userId -> 읽기 전 변경 번호
+        for (int i = 0; i < ids.size(); i++) {
+            String value = values != null ? values.get(2 * i) : null;
+            if (value != null) {
+                counts.put(ids.get(i), Long.parseLong(value));
+            } else {
+                missing.put(ids.get(i), values != null ? values.get(2 * i + 1) : null);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (Object[] row : notificationRepository.countUnreadGroupByUser(missing.keySet())) {
+                counts.put((Long) row[0], ((Number) row[1]).longValue());
+            }
+            missing.forEach((userId, seq) -> populateCount(userId, seq, counts.computeIfAbsent(userId, id -> 0L)));
+        }
+        return counts;
+    }
+
+    private void populateCount(Long userId, String seq, long count) {
+        stringRedisTemplate.execute(POPULATE_COUNT_SCRIPT, List.of(unreadKey(userId), seqKey(userId)),
+                seq != null ? seq : "0", Long.toString(count), String.valueOf(ttl.toSeconds()));
+    }
+
+    /**
+     * 최근 알림 size 개 (최신순)
+     * size 가 목록 크기보다 크면 null 을 반환하므로 호출한 쪽에서 DB 로 조회해야 합니다.
+     */
+    public List<NotificationDTO> getRecent(Long userId, int size) {
+        if (size > inboxSize) {
+            return null;
+        }
+        String key = inboxKey(userId);
+        List<String> values = stringRedisTemplate.opsForList().range(key, 0, size - 1);
+        if (values == null || values.isEmpty()) {
+            List<NotificationDTO> loaded = loadInbox(userId);
+            return loaded.subList(0, Math.min(size, loaded.size()));
+        }
+        return values.stream()
+                .filter(value -> !EMPTY_MARKER.equals(value))
+                .map(this::fromJson)
+                .toList();
+    }
+
+    // 읽음 처리 1건
+    public void decrementUnread(Long userId) {
+        TransactionUtils.afterCommit(() -> stringRedisTemplate.execute(DECREMENT_SCRIPT,
+                List.of(unreadKey(userId), inboxKey(userId), seqKey(userId)), String.valueOf(ttl.toSeconds())));
+    }
+
+    // 모두 읽음 처리
+    public void markAllRead(Long userId) {
+        TransactionUtils.afterCommit(() -> {
+            invalidate(userId, inboxKey(userId));
+            stringRedisTemplate.opsForValue().set(unreadKey(userId), "0", ttl);
+        });
+    }
+
+    // 목록에서 빠지거나 바뀐 알림이 있을 때 (삭제 등): 목록을 다시 읽게 함
+    public void evictInbox(Long userId) {
+        TransactionUtils.afterCommit(() -> invalidate(userId, inboxKey(userId)));
+    }
+
+    public void evict(Collection<Long> userIds) {
+        try {
+            for (Long userId : userIds) {
+                invalidate(userId, unreadKey(userId), inboxKey(userId));
+            }
+        } catch (Exception e) {
+            log.error("Failed to evict notification inbox for {} users", userIds.size(), e);
+        }
+    }
+
+    // 변경 번호를 올리고 키를 지움 (이미 DB 를 읽고 있던 조회가 이전 값을 채우지 못하게)
+    private void invalidate(Long userId, String... keys) {
+        List<String> scriptKeys = new ArrayList<>(keys.length + 1);
+        scriptKeys.add(seqKey(userId));
+        scriptKeys.addAll(List.of(keys));
+        stringRedisTemplate.execute(INVALIDATE_SCRIPT, scriptKeys, String.valueOf(ttl.toSeconds()));
+    }
+
+    // DB 에서 최근 inboxSize 개를 읽어 목록을 채움 (알림이 없으면 빈 표시만 넣음)
+    private List<NotificationDTO> loadInbox(Long userId) {
+        String seq = stringRedisTemplate.opsForValue().get(seqKey(userId));
+        List<Notification> notifications = notificationRepository.findByUserIdOrderByIdDesc(userId,
+                PageRequest.of(0, inboxSize));
+        List<NotificationDTO> dtos = notifications.stream()
+                .map(notification -> {
+                    NotificationDTO dto = new NotificationDTO(
+                            notification.getId(),
+                            notification.getMessage(),
+                            userId,
+                            notification.isRead());
+                    dto.setNotificationType(notification.getNotificationType() != null
+                            ? notification.getNotificationType().name() : null);
+                    dto.setTargetType(notification.getTargetType() != null
+                            ? notification.getTargetType().name() : null);
+                    dto.setTargetId(notification.getTargetId());
+                    dto.setActorCount(notification.getActorCount() != null ? notification.getActorCount() : 1);
+                    dto.setRecentActors(RecentActors.decode(notification.getRecentActors()));
+                    return dto;
+                })
+                .toList();
+        List<String> args = new ArrayList<>(dtos.size() + 3);
+        args.add(seq != null ? seq : "0");
+        args.add(String.valueOf(ttl.toSeconds()));
+        args.add(EMPTY_MARKER);
+        dtos.forEach(dto -> args.add(toJson(dto)));
+        stringRedisTemplate.execute(POPULATE_INBOX_SCRIPT, List.of(inboxKey(userId), seqKey(userId)), args.toArray());
+        return dtos;
+    }
+
+    private String toJson(NotificationDTO notification) {
+        try {
+            return objectMapper.writeValueAsString(notification);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private NotificationDTO fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, NotificationDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String unreadKey(Long userId) {
+        return UNREAD_KEY_PREFIX + generation + ":" + userId;
+    }
+
+    private String inboxKey(Long userId) {
+        return INBOX_KEY_PREFIX + generation + ":" + userId;
+    }
+
+    private String seqKey(Long userId) {
+        return SEQ_KEY_PREFIX + generation + ":" + userId;
+    }
+}
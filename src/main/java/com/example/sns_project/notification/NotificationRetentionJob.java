@@ -0,0 +1,248 @@
+package com.example.sns_project.notification;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 오래된 알림 정리 (보관 기간: sns.notifications.retention.days)
+ * 매일 한 번 실행되며, 여러 서버 중 Redis 락을 잡은 한 곳에서만 실행됩니다.
+ *
+ * notifications 테이블이 월별 파티션(resources/db/notifications_partitioning.sql)으로 전환되어 있으면
+ * 앞으로 쓸 파티션을 미리 만들고, 보관 기간이 지난 달의 파티션을 통째로 DROP 합니다. (행 단위 삭제 없음)
+ * 파티션이 없으면 id 구간 단위로 나눠 DELETE 하고 구간마다 커밋하므로 테이블을 오래 잠그지 않습니다.
+ *
+ * archive 를 켜면 지우기 전에 보관 테이블로 옮깁니다.
+ * 파티션은 EXCHANGE PARTITION 으로 notifications_archive_pYYYYMM 테이블과 맞바꾸고, 행 단위 삭제는 같은 트랜잭션에서
+ * notifications_archive 에 복사합니다. 맞바꿀 보관 테이블에 이미 행이 있으면(이전 실행이 중간에 멈춘 경우 등)
+ * 보관한 알림을 지우게 되므로 실행을 중단합니다.
+ */
+@Log4j2
+@Component
+public class NotificationRetentionJob {
+
+    private static final String TABLE = "notifications";
+    private static final String ARCHIVE_TABLE = "notifications_archive";
+    private static final String MAX_PARTITION = "pmax";
+    private static final String LOCK_KEY = "notifications:retention:lock";
+    private static final Duration LOCK_TTL = Duration.ofHours(1);
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+    private static final String COLUMNS = "id, user_id, message, notification_type, is_read, created_date, modified_date, "
+            + "target_type, target_id, actor_count, recent_actors";
+
+    // KEYS: [락], ARGV: [토큰] - 내가 잡은 락일 때만 해제 (TTL 이 지나 다른 서버가 잡은 락은 건드리지 않음)
+    private static final RedisScript<Long> RELEASE_LOCK_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+              return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final NotificationInbox notificationInbox;
+    private final boolean enabled;
+    private final int retentionDays;
+    private final boolean archive;
+    private final int chunkSize;
+    private final long chunkPauseMs;
+    private final int premadeMonths;
+
+    public NotificationRetentionJob(JdbcTemplate jdbcTemplate,
+                                    TransactionTemplate transactionTemplate,
+                                    StringRedisTemplate stringRedisTemplate,
+                                    NotificationInbox notificationInbox,
+                                    @Value("${sns.notifications.retention.enabled:true}") boolean enabled,
+                                    @Value("${sns.notifications.retention.days:90}") int retentionDays,
+                                    @Value("${sns.notifications.retention.archive:false}") boolean archive,
+                                    @Value("${sns.notifications.retention.chunk-size:5000}") int chunkSize,
+                                    @Value("${sns.notifications.retention.chunk-pause-ms:100}") long chunkPauseMs,
+                                    @Value("${sns.notifications.retention.premade-months:2}") int premadeMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.notificationInbox = notificationInbox;
+        this.enabled = enabled;
+        this.retentionDays = retentionDays;
+        this.archive = archive;
+        this.chunkSize = chunkSize;
+        this.chunkPauseMs = chunkPauseMs;
+        this.premadeMonths = premadeMonths;
+    }
+
+    @Scheduled(cron = "${sns.notifications.retention.cron:0 30 4 * * *}")
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        String token = UUID.randomUUID().toString();
+        Boolean locked = stringRedisTemplate.opsForValue().setIfAbsent(LOCK_KEY, token, LOCK_TTL);
+        if (!Boolean.TRUE.equals(locked)) {
+            return;
+        }
+        try {
+            LocalDateTime cutoff = LocalDate.now().minusDays(retentionDays).atStartOfDay();
+            long removed;
+            if (isPartitioned()) {
+                createFuturePartitions();
+                removed = dropExpiredPartitions(cutoff);
+            } else {
+                removed = deleteInChunks(cutoff);
+            }
+
+            // 지운 알림 중 읽지 않은 것이 있으면 Redis 의 읽지 않은 수가 어긋나므로 다시 읽게 함
+            if (removed > 0) {
+                notificationInbox.invalidateAll();
+            }
+            log.info("Notification retention removed {} notifications older than {}", removed, cutoff);
+        } catch (Exception e) {
+            log.error("Notification retention failed", e);
+        } finally {
+            stringRedisTemplate.execute(RELEASE_LOCK_SCRIPT, List.of(LOCK_KEY), token);
+        }
+    }
+
+    // 보관 기간이 지난 알림을 id 구간 단위로 삭제 (구간마다 별도 트랜잭션)
+    private long deleteInChunks(LocalDateTime cutoff) {
+        Long minId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM " + TABLE, Long.class);
+        Long maxId = jdbcTemplate.queryForObject(
+                "SELECT MAX(id) FROM " + TABLE + " WHERE created_date < ?", Long.class, cutoff);
+        if (minId == null || maxId == null) {
+            return 0;
+        }
+        if (archive) {
+            createArchiveTable(ARCHIVE_TABLE);
+        }
+
+        long removed = 0;
+        for (long fromId = minId - 1; fromId < maxId; fromId += chunkSize) {
+            long from = fromId;
+            long to = Math.min(fromId + chunkSize, maxId);
+            Integer deleted = transactionTemplate.execute(status -> {
+                if (archive) {
+                    jdbcTemplate.update("INSERT INTO " + ARCHIVE_TABLE + " (" + COLUMNS + ") SELECT " + COLUMNS
+                            + " FROM " + TABLE + " WHERE id > ? AND id <= ? AND created_date < ?", from, to, cutoff);
+                }
+                return jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE id > ? AND id <= ? AND created_date < ?",
+                        from, to, cutoff);
+            });
+            removed += deleted != null ? deleted : 0;
+            if (!pause()) {
+                break;
+            }
+        }
+        return removed;
+    }
+
+    // 이번 달부터 premadeMonths 개월 뒤까지의 파티션을 pmax 에서 떼어 만듦 (pmax 가 비어 있으므로 빠름)
+    private void createFuturePartitions() {
+        List<String> partitions = partitionNames();
+        YearMonth month = YearMonth.now();
+        for (int i = 0; i <= premadeMonths; i++, month = month.plusMonths(1)) {
+            String name = month.format(PARTITION_NAME);
+            if (partitions.contains(name)) {
+                continue;
+            }
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " REORGANIZE PARTITION " + MAX_PARTITION + " INTO ("
+                    + "PARTITION " + name + " VALUES LESS THAN (TO_DAYS('" + month.plusMonths(1).atDay(1) + "')), "
+                    + "PARTITION " + MAX_PARTITION + " VALUES LESS THAN MAXVALUE)");
+            log.info("Created notification partition {}", name);
+        }
+    }
+
+    // 모든 행이 cutoff 이전인 월 파티션을 삭제 (archive 면 먼저 보관 테이블과 맞바꿈)
+    private long dropExpiredPartitions(LocalDateTime cutoff) {
+        long removed = 0;
+        for (String name : partitionNames()) {
+            if (!name.matches("p\\d{6}")) {
+                continue;
+            }
+            YearMonth month = YearMonth.parse(name, PARTITION_NAME);
+            if (month.plusMonths(1).atDay(1).atStartOfDay().isAfter(cutoff)) {
+                continue;
+            }
+
+            Long rows = jdbcTemplate.queryForObject(
+                    "SELECT TABLE_ROWS FROM information_schema.PARTITIONS "
+                            + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME = ?",
+                    Long.class, TABLE, name);
+            if (archive) {
+                String archiveTable = ARCHIVE_TABLE + "_" + name;
+                if (!tableExists(archiveTable)) {
+                    // EXCHANGE PARTITION 대상은 파티션이 없는 같은 구조의 빈 테이블이어야 함
+                    createArchiveTable(archiveTable);
+                    jdbcTemplate.execute("ALTER TABLE " + archiveTable + " REMOVE PARTITIONING");
+                } else if (hasRows(archiveTable)) {
+                    // 맞바꾸면 보관 테이블의 행이 파티션으로 들어가 바로 아래 DROP 에서 사라짐
+                    throw new IllegalStateException("Archive table " + archiveTable
+                            + " is not empty, aborting retention before exchanging partition " + name);
+                }
+                jdbcTemplate.execute("ALTER TABLE " + TABLE + " EXCHANGE PARTITION " + name + " WITH TABLE " + archiveTable);
+            }
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP PARTITION " + name);
+            removed += rows != null ? rows : 0;
+            log.info("Dropped notification partition {} (~{} rows{})", name, rows, archive ? ", archived" : "");
+        }
+        return removed;
+    }
+
+    private boolean isPartitioned() {
+        return !partitionNames().isEmpty();
+    }
+
+    private List<String> partitionNames() {
+        return jdbcTemplate.queryForList(
+                "SELECT PARTITION_NAME FROM information_schema.PARTITIONS "
+                        + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL "
+                        + "ORDER BY PARTITION_ORDINAL_POSITION",
+                String.class, TABLE);
+    }
+
+    private boolean tableExists(String table) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?",
+                Integer.class, table);
+        return count != null && count > 0;
+    }
+
+    private boolean hasRows(String table) {
+        Boolean exists = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM " + table + ")", Boolean.class);
+        return Boolean.TRUE.equals(exists);
+    }
+
+    // CREATE TABLE ... LIKE 는 외래 키를 복사하지 않으므로 보관 테이블은 사용자 삭제와 무관하게 유지됨
+    private void createArchiveTable(String archiveTable) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + archiveTable + " LIKE " + TABLE);
+    }
+
+    // 구간 사이에 잠시 쉬어 복제 지연과 다른 쓰기 작업의 대기를 줄임
+    // 종료 중이라 중단해야 하면 false
+    private boolean pause() {
+        if (chunkPauseMs <= 0) {
+            return true;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(chunkPauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
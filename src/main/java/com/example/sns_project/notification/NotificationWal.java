@@ -0,0 +1,290 @@
+package com.example.sns_project.notification;
+
+import com.example.sns_project.enums.NotificationTargetType;
+import com.example.sns_project.enums.NotificationType;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 저장 대기 중인 알림을 위한 로컬 write-ahead log
+ * 알림은 큐에 들어가기 전에 메모리 매핑된 세그먼트 파일에 먼저 기록되고,
+ * writer 가 DB 저장을 마치면 체크포인트(저장이 끝난 마지막 seq)를 앞으로 옮깁니다.
+ * 기동 시에는 체크포인트 이후의 레코드를 다시 읽어 저장하므로 JVM 이 죽어도 알림을 잃지 않습니다. (at-least-once)
+ *
+ * 레코드 형식: [payload 길이 int][CRC32 int][seq long][payload]
+ * 마지막 레코드가 쓰다 만 상태면 CRC 가 맞지 않으므로 그 앞까지만 읽습니다.
+ * sync-on-append 를 끄면 OS 페이지 캐시까지만 보장하므로 프로세스 장애에는 안전하지만 OS 장애에는 일부를 잃을 수 있습니다.
+ */
+@Log4j2
+@Component
+public class NotificationWal {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final int RECORD_HEADER_SIZE = 4 + 4 + 8;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean syncOnAppend;
+
+    // 세그먼트 첫 seq -> 파일 (첫 seq 순으로 정렬)
+    private final ConcurrentSkipListMap<Long, Path> segments = new ConcurrentSkipListMap<>();
+    private final Object appendLock = new Object();
+    private MappedByteBuffer currentBuffer;
+    private long nextSeq = 1;
+    private volatile long checkpointSeq;
+
+    public NotificationWal(@Value("${sns.notifications.wal.enabled:true}") boolean enabled,
+                           @Value("${sns.notifications.wal.directory:./data/notification-wal}") String directory,
+                           @Value("${sns.notifications.wal.segment-size-mb:16}") int segmentSizeMb,
+                           @Value("${sns.notifications.wal.sync-on-append:false}") boolean syncOnAppend) {
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.segmentSize = segmentSizeMb * 1024 * 1024;
+        this.syncOnAppend = syncOnAppend;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 기존 세그먼트에서 체크포인트 이후의 레코드를 읽어 반환하고, 이후 기록은 새 세그먼트에 이어서 합니다.
+     * 반환된 레코드를 저장한 뒤 {@link #checkpoint(long)} 를 호출해야 합니다.
+     */
+    public List<QueuedNotification> recover() {
+        if (!enabled) {
+            return List.of();
+        }
+        try {
+            Files.createDirectories(directory);
+            checkpointSeq = readCheckpoint();
+
+            List<QueuedNotification> pending = new ArrayList<>();
+            long lastSeq = checkpointSeq;
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path segment : files.filter(this::isSegment).toList()) {
+                    segments.put(firstSeqOf(segment), segment);
+                }
+            }
+            for (Map.Entry<Long, Path> entry : segments.entrySet()) {
+                long segmentLastSeq = readSegment(entry.getValue(), pending);
+                if (segmentLastSeq == 0) {
+                    // 만들어지기만 하고 기록되지 않은 세그먼트 (같은 이름으로 다시 만들 수 있도록 삭제)
+                    Files.deleteIfExists(entry.getValue());
+                    segments.remove(entry.getKey());
+                }
+                lastSeq = Math.max(lastSeq, segmentLastSeq);
+            }
+
+            synchronized (appendLock) {
+                nextSeq = lastSeq + 1;
+                currentBuffer = null;
+            }
+            log.info("Recovered {} notifications from WAL (checkpoint: {})", pending.size(), checkpointSeq);
+            return pending;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to recover notification WAL", e);
+        }
+    }
+
+    /**
+     * 알림을 로그에 기록한 뒤, 같은 락 안에서 onAppended(seq) 를 호출합니다.
+     * 큐에 넣는 작업을 onAppended 에서 하면 큐 순서와 seq 순서가 같아지므로 체크포인트를 단순하게 유지할 수 있습니다.
+     */
+    public void append(PendingNotification notification, LongConsumer onAppended) {
+        if (!enabled) {
+            onAppended.accept(0L);
+            return;
+        }
+
+        byte[] payload = encode(notification);
+        synchronized (appendLock) {
+            long seq = nextSeq;
+            int recordSize = RECORD_HEADER_SIZE + payload.length;
+            if (currentBuffer == null || currentBuffer.remaining() < recordSize) {
+                roll(seq, recordSize);
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(ByteBuffer.allocate(8).putLong(0, seq));
+            crc.update(payload);
+            currentBuffer.putInt(payload.length)
+                    .putInt((int) crc.getValue())
+                    .putLong(seq)
+                    .put(payload);
+            if (syncOnAppend) {
+                currentBuffer.force();
+            }
+            nextSeq++;
+            onAppended.accept(seq);
+        }
+    }
+
+    // seq 까지 DB 저장이 끝났음을 기록하고, 더 이상 필요 없는 세그먼트를 삭제 (writer 스레드에서만 호출)
+    public void checkpoint(long seq) {
+        if (!enabled || seq <= checkpointSeq) {
+            return;
+        }
+        try {
+            Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+            Files.writeString(temp, Long.toString(seq));
+            Files.move(temp, directory.resolve(CHECKPOINT_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            checkpointSeq = seq;
+            deleteCheckpointedSegments();
+        } catch (IOException e) {
+            // 체크포인트가 늦어지면 재시작 시 중복 저장될 수 있을 뿐 유실은 없음
+            log.error("Failed to write notification WAL checkpoint {}", seq, e);
+        }
+    }
+
+    private void roll(long firstSeq, int recordSize) {
+        Path segment = directory.resolve(SEGMENT_PREFIX + String.format("%020d", firstSeq) + SEGMENT_SUFFIX);
+        try (FileChannel channel = FileChannel.open(segment,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            currentBuffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(segmentSize, recordSize));
+            segments.put(firstSeq, segment);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create notification WAL segment " + segment, e);
+        }
+    }
+
+    // 마지막 세그먼트(현재 기록 중)를 제외하고, 다음 세그먼트의 첫 seq 가 체크포인트 이하인 세그먼트 삭제
+    private void deleteCheckpointedSegments() throws IOException {
+        for (Map.Entry<Long, Path> entry : segments.entrySet()) {
+            Long nextFirstSeq = segments.higherKey(entry.getKey());
+            if (nextFirstSeq == null || nextFirstSeq - 1 > checkpointSeq) {
+                return;
+            }
+            Files.deleteIfExists(entry.getValue());
+            segments.remove(entry.getKey());
+        }
+    }
+
+    // 세그먼트에서 체크포인트 이후 레코드를 읽고, 읽은 마지막 seq 를 반환
+    private long readSegment(Path segment, List<QueuedNotification> pending) throws IOException {
+        long lastSeq = 0;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                long seq = buffer.getLong();
+                if (length <= 0 || length > buffer.remaining()) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                buffer.get(payload);
+
+                CRC32 crc = new CRC32();
+                crc.update(ByteBuffer.allocate(8).putLong(0, seq));
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    log.error("Corrupted notification WAL record in {} (seq: {}), skipping the rest", segment, seq);
+                    break;
+                }
+
+                lastSeq = seq;
+                if (seq > checkpointSeq) {
+                    pending.add(new QueuedNotification(seq, decode(payload)));
+                }
+            }
+        }
+        return lastSeq;
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(checkpoint)) {
+            return 0L;
+        }
+        return Long.parseLong(Files.readString(checkpoint).trim());
+    }
+
+    private boolean isSegment(Path path) {
+        String fileName = path.getFileName().toString();
+        return fileName.startsWith(SEGMENT_PREFIX) && fileName.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private long firstSeqOf(Path segment) {
+        String fileName = segment.getFileName().toString();
+        return Long.parseLong(fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    // payload: [userId long][type][createdDate][message][targetType][targetId long][actorCount int][recentActors]
+    // (문자열은 길이 int + UTF-8, recentActors 는 DB 컬럼과 같은 RecentActors 형식, targetId 가 없으면 0)
+    // targetType 이후는 나중에 추가된 필드라 이전 형식의 레코드에는 없음
+    private byte[] encode(PendingNotification notification) {
+        byte[] type = bytesOf(notification.notificationType() != null ? notification.notificationType().name() : "");
+        byte[] createdDate = bytesOf(notification.createdDate().toString());
+        byte[] message = bytesOf(notification.message());
+        byte[] targetType = bytesOf(notification.targetType() != null ? notification.targetType().name() : "");
+        String encodedActors = RecentActors.encode(notification.recentActors());
+        byte[] recentActors = bytesOf(encodedActors != null ? encodedActors : "");
+
+        return ByteBuffer.allocate(8 + 4 + type.length + 4 + createdDate.length + 4 + message.length
+                        + 4 + targetType.length + 8 + 4 + 4 + recentActors.length)
+                .putLong(notification.userId())
+                .putInt(type.length).put(type)
+                .putInt(createdDate.length).put(createdDate)
+                .putInt(message.length).put(message)
+                .putInt(targetType.length).put(targetType)
+                .putLong(notification.targetId() != null ? notification.targetId() : 0L)
+                .putInt(notification.actorCount())
+                .putInt(recentActors.length).put(recentActors)
+                .array();
+    }
+
+    private PendingNotification decode(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        long userId = buffer.getLong();
+        String type = readString(buffer);
+        String createdDate = readString(buffer);
+        String message = readString(buffer);
+        NotificationType notificationType = type.isEmpty() ? null : NotificationType.valueOf(type);
+        if (!buffer.hasRemaining()) {
+            return new PendingNotification(userId, message, notificationType, LocalDateTime.parse(createdDate),
+                    null, null, 1, List.of());
+        }
+
+        String targetType = readString(buffer);
+        long targetId = buffer.getLong();
+        int actorCount = buffer.getInt();
+        String recentActors = readString(buffer);
+        return new PendingNotification(userId, message, notificationType, LocalDateTime.parse(createdDate),
+                targetType.isEmpty() ? null : NotificationTargetType.valueOf(targetType),
+                targetId != 0L ? targetId : null,
+                actorCount,
+                RecentActors.decode(recentActors));
+    }
+
+    private byte[] bytesOf(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,355 @@
+package com.example.sns_project.notification;
+
+import com.example.sns_project.dto.NotificationDTO;
+import com.example.sns_project.enums.NotificationOverflowPolicy;
+import com.example.sns_project.websocket.NotificationPusher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 알림 저장 전용 writer
+ * 요청 스레드는 크기 제한이 있는 lock-free 큐에 넣기만 하고, 전용 스레드 하나가 batchSize 개가 모이거나
+ * flushInterval 이 지나면 JDBC 배치 INSERT 로 저장합니다.
+ * (notifications 는 IDENTITY 키라 JPA saveAll 로는 INSERT 배치가 되지 않으므로 JdbcTemplate 사용)
+ * 저장된 알림은 {@link NotificationInbox} 의 읽지 않은 수/최근 목록에 반영한 뒤
+ * {@link NotificationPusher} 로 넘겨 접속 중인 사용자에게 실시간 전송합니다.
+ * 애플리케이션 종료 시에는 웹 서버가 멈춘 뒤 큐에 남은 알림을 모두 저장하고 종료합니다.
+ *
+ * 큐에 넣기 전에 {@link NotificationWal} 에 먼저 기록하고, 배치 저장이 끝나면 체크포인트를 옮깁니다.
+ * DB 장애로 저장하지 못한 배치는 재시도하며, 그 사이 프로세스가 죽어도 재시작 시 WAL 에서 다시 저장합니다.
+ * 재시작 시 WAL 에서 읽은 알림은 writer 스레드가 새 알림보다 먼저 저장하므로 DB 가 내려가 있어도 기동을 막지 않습니다.
+ * 배치 INSERT 는 한 트랜잭션으로 실행하므로 중간에 실패하면 모두 롤백된 상태에서 한 건씩 다시 저장합니다.
+ */
+@Log4j2
+@Component
+public class NotificationWriter implements SmartLifecycle {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO notifications (user_id, message, notification_type, is_read, created_date, "
+                    + "target_type, target_id, actor_count, recent_actors) VALUES (?, ?, ?, false, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationWal wal;
+    private final NotificationInbox notificationInbox;
+    private final NotificationPusher notificationPusher;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final NotificationOverflowPolicy overflowPolicy;
+    private final long offerTimeoutNanos;
+
+    private final ConcurrentLinkedQueue<QueuedNotification> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final Counter droppedCounter;
+    private final Counter writtenCounter;
+
+    private volatile boolean running;
+    private volatile Thread writerThread;
+
+    public NotificationWriter(JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              NotificationWal wal,
+                              NotificationInbox notificationInbox,
+                              NotificationPusher notificationPusher,
+                              MeterRegistry meterRegistry,
+                              @Value("${sns.notifications.queue-capacity:100000}") int capacity,
+                              @Value("${sns.notifications.batch-size:1000}") int batchSize,
+                              @Value("${sns.notifications.flush-interval-ms:200}") long flushIntervalMs,
+                              @Value("${sns.notifications.overflow-policy:DROP_OLDEST}") NotificationOverflowPolicy overflowPolicy,
+                              @Value("${sns.notifications.offer-timeout-ms:50}") long offerTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.wal = wal;
+        this.notificationInbox = notificationInbox;
+        this.notificationPusher = notificationPusher;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.overflowPolicy = overflowPolicy;
+        this.offerTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(offerTimeoutMs);
+
+        meterRegistry.gauge("sns.notifications.queue.size", size);
+        this.droppedCounter = meterRegistry.counter("sns.notifications.dropped");
+        this.writtenCounter = meterRegistry.counter("sns.notifications.written");
+    }
+
+    // 설정된 정책으로 큐에 추가 (버려졌으면 false)
+    public boolean enqueue(PendingNotification notification) {
+        return enqueue(notification, overflowPolicy, offerTimeoutNanos);
+    }
+
+    private boolean enqueue(PendingNotification notification, NotificationOverflowPolicy policy, long timeoutNanos) {
+        if (!reserve(policy, timeoutNanos)) {
+            droppedCounter.increment();
+            return false;
+        }
+
+        try {
+            wal.append(notification, seq -> queue.offer(new QueuedNotification(seq, notification)));
+        } catch (Exception e) {
+            // WAL 기록에 실패해도 알림은 메모리 큐로 처리 (이 알림만 유실 보호를 받지 못함)
+            log.error("Failed to append notification to WAL", e);
+            queue.offer(new QueuedNotification(0L, notification));
+        }
+        if (size.get() >= batchSize) {
+            wakeUpWriter();
+        }
+        return true;
+    }
+
+    // 큐 자리를 하나 확보
+    private boolean reserve(NotificationOverflowPolicy policy, long timeoutNanos) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (true) {
+            int current = size.get();
+            if (current < capacity) {
+                if (size.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+                continue;
+            }
+
+            switch (policy) {
+                case DROP_NEWEST:
+                    return false;
+                case DROP_OLDEST:
+                    // 가장 오래된 알림 자리를 그대로 넘겨받음 (size 변화 없음)
+                    if (queue.poll() != null) {
+                        droppedCounter.increment();
+                        return true;
+                    }
+                    break;
+                case BLOCK:
+                    wakeUpWriter();
+                    if (timeoutNanos != Long.MAX_VALUE && System.nanoTime() - deadline >= 0) {
+                        return false;
+                    }
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(1));
+                    break;
+            }
+        }
+    }
+
+    // 남은 알림을 바로 저장하도록 writer 를 깨움
+    public void requestFlush() {
+        wakeUpWriter();
+    }
+
+    public int getQueueSize() {
+        return size.get();
+    }
+
+    private void wakeUpWriter() {
+        Thread thread = writerThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void runWriter(List<QueuedNotification> recovered) {
+        // 이전 실행에서 남은 알림을 먼저 저장 (새 알림보다 seq 가 작으므로 체크포인트 순서가 유지됨)
+        for (int from = 0; from < recovered.size(); from += batchSize) {
+            if (!writeAndCheckpoint(recovered.subList(from, Math.min(from + batchSize, recovered.size())))) {
+                // 종료 중: 큐의 알림을 저장해 체크포인트를 옮기면 남은 복구 알림을 건너뛰게 되므로 모두 WAL 에 남김
+                log.error("Stopped replaying notification WAL, {} recovered and {} queued notifications left in WAL for next startup",
+                        recovered.size() - from, size.get());
+                return;
+            }
+        }
+
+        while (running) {
+            if (size.get() < batchSize) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            drain();
+        }
+        // 종료 시 남은 알림 저장 (저장에 실패하면 WAL 에 남겨 두고 재시작 시 처리)
+        while (!queue.isEmpty()) {
+            if (!drain()) {
+                log.error("Stopped draining notifications, {} left in WAL for next startup", size.get());
+                return;
+            }
+        }
+    }
+
+    // 배치 하나를 꺼내 저장 (DB 장애로 저장하지 못하고 종료 중이면 false)
+    private boolean drain() {
+        List<QueuedNotification> batch = new ArrayList<>(Math.min(batchSize, Math.max(size.get(), 1)));
+        QueuedNotification queued;
+        while (batch.size() < batchSize && (queued = queue.poll()) != null) {
+            batch.add(queued);
+        }
+        if (batch.isEmpty()) {
+            return true;
+        }
+        size.addAndGet(-batch.size());
+        return writeAndCheckpoint(batch);
+    }
+
+    // 저장될 때까지 재시도한 뒤 체크포인트 (같은 배치를 다시 저장하므로 일부 중복될 수 있음)
+    private boolean writeAndCheckpoint(List<QueuedNotification> batch) {
+        List<NotificationDTO> persisted = new ArrayList<>(batch.size());
+        while (!write(batch, persisted)) {
+            if (!running) {
+                return false;
+            }
+            persisted.clear();
+            LockSupport.parkNanos(this, Math.max(flushIntervalNanos, TimeUnit.SECONDS.toNanos(1)));
+        }
+        long lastSeq = 0;
+        for (QueuedNotification queued : batch) {
+            lastSeq = Math.max(lastSeq, queued.seq());
+        }
+        if (lastSeq > 0) {
+            wal.checkpoint(lastSeq);
+        }
+        notificationInbox.recordPersisted(persisted);
+        notificationPusher.push(persisted);
+        return true;
+    }
+
+    // 저장했거나 저장할 수 없는 알림(탈퇴한 사용자 등)을 걸러냈으면 true, DB 장애면 false
+    // 저장된 알림은 생성된 ID와 함께 persisted 에 담음
+    private boolean write(List<QueuedNotification> batch, List<NotificationDTO> persisted) {
+        try {
+            List<PendingNotification> notifications = batch.stream().map(QueuedNotification::notification).toList();
+            addPersisted(notifications, insert(notifications), persisted);
+            writtenCounter.increment(batch.size());
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            // 배치 중 한 건 때문에 전체가 실패하지 않도록 한 건씩 다시 저장
+            log.error("Failed to write {} notifications in batch, retrying one by one", batch.size(), e);
+        } catch (Exception e) {
+            log.error("Failed to write {} notifications, will retry", batch.size(), e);
+            return false;
+        }
+
+        for (QueuedNotification queued : batch) {
+            try {
+                List<PendingNotification> single = List.of(queued.notification());
+                addPersisted(single, insert(single), persisted);
+                writtenCounter.increment();
+            } catch (DataIntegrityViolationException rowException) {
+                droppedCounter.increment();
+                log.error("Dropped notification for user {}", queued.notification().userId(), rowException);
+            } catch (Exception rowException) {
+                log.error("Failed to write notification, will retry", rowException);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // JDBC 배치 INSERT 후 생성된 ID 목록을 반환 (드라이버가 키를 돌려주지 않으면 빈 목록)
+    // 한 트랜잭션으로 실행해 일부 행만 저장된 채 남지 않게 함 (실패하면 전부 롤백)
+    private List<Long> insert(List<PendingNotification> notifications) {
+        return transactionTemplate.execute(status -> insertBatch(notifications));
+    }
+
+    private List<Long> insertBatch(List<PendingNotification> notifications) {
+        return jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (PendingNotification notification : notifications) {
+                    statement.setLong(1, notification.userId());
+                    statement.setString(2, notification.message());
+                    statement.setString(3, notification.notificationType() != null
+                            ? notification.notificationType().name() : null);
+                    statement.setTimestamp(4, Timestamp.valueOf(notification.createdDate()));
+                    statement.setString(5, notification.targetType() != null ? notification.targetType().name() : null);
+                    statement.setObject(6, notification.targetId(), Types.BIGINT);
+                    statement.setInt(7, notification.actorCount());
+                    statement.setString(8, RecentActors.encode(notification.recentActors()));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+
+                List<Long> ids = new ArrayList<>(notifications.size());
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        ids.add(keys.getLong(1));
+                    }
+                }
+                return ids;
+            }
+        });
+    }
+
+    private void addPersisted(List<PendingNotification> notifications, List<Long> ids, List<NotificationDTO> persisted) {
+        boolean hasIds = ids.size() == notifications.size();
+        for (int i = 0; i < notifications.size(); i++) {
+            PendingNotification notification = notifications.get(i);
+            NotificationDTO dto = new NotificationDTO(hasIds ? ids.get(i) : null,
+                    notification.message(), notification.userId(), false);
+            dto.setNotificationType(notification.notificationType() != null
+                    ? notification.notificationType().name() : null);
+            dto.setTargetType(notification.targetType() != null ? notification.targetType().name() : null);
+            dto.setTargetId(notification.targetId());
+            dto.setActorCount(notification.actorCount());
+            dto.setRecentActors(notification.recentActors());
+            persisted.add(dto);
+        }
+    }
+
+    // 이전 실행에서 저장하지 못한 알림을 WAL 에서 읽어 writer 에 넘김 (파일만 읽고 DB 저장은 writer 스레드에서)
+    @Override
+    public void start() {
+        List<QueuedNotification> recovered = wal.recover();
+        running = true;
+
+        Thread thread = new Thread(() -> runWriter(recovered), "notification-writer");
+        thread.setDaemon(false);
+        writerThread = thread;
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread thread = writerThread;
+        if (thread == null) {
+            return;
+        }
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.error("Notification writer stopped with {} notifications left", size.get());
+        }
+        writerThread = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // 웹 서버(graceful shutdown 포함)가 먼저 멈춘 뒤에 종료되도록 더 낮은 phase 사용
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+}
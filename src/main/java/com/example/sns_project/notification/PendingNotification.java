@@ -0,0 +1,24 @@
+package com.example.sns_project.notification;
+
+import com.example.sns_project.enums.NotificationTargetType;
+import com.example.sns_project.enums.NotificationType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// 저장 대기 중인 알림 (엔티티 대신 수신자 ID만 들고 있어 사용자 조회가 필요 없음)
+// 묶음 알림이면 대상(targetType, targetId), 모인 이벤트 수(actorCount), 최근 행위자 이름(recentActors, 최신순)을 함께 가짐
+public record PendingNotification(Long userId,
+                                  String message,
+                                  NotificationType notificationType,
+                                  LocalDateTime createdDate,
+                                  NotificationTargetType targetType,
+                                  Long targetId,
+                                  int actorCount,
+                                  List<String> recentActors) {
+
+    public static PendingNotification of(Long userId, String message, NotificationType notificationType) {
+        return new PendingNotification(userId, message, notificationType, LocalDateTime.now(),
+                null, null, 1, List.of());
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.sns_project.notification;
+
+// 큐에 들어간 알림과 WAL 상의 위치 (WAL 을 쓰지 않으면 seq 는 0)
+public record QueuedNotification(long seq, PendingNotification notification) {
+}
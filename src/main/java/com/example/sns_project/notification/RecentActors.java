@@ -0,0 +1,61 @@
+package com.example.sns_project.notification;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * notifications.recent_actors 컬럼 값 변환 (최근 행위자 이름, 최신순)
+ * 이름에 쉼표가 들어갈 수 있으므로 JSON 배열 문자열로 저장합니다.
+ * 예전 형식(쉼표로 이은 문자열)으로 저장된 행도 읽을 수 있습니다.
+ */
+public final class RecentActors {
+
+    // Notification.recentActors 컬럼 길이
+    public static final int MAX_LENGTH = 500;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<List<String>> LIST_TYPE = new TypeReference<>() {
+    };
+
+    private RecentActors() {
+    }
+
+    // 컬럼 길이를 넘으면 오래된 이름부터 뺌 (비어 있으면 null)
+    public static String encode(List<String> actors) {
+        List<String> kept = new ArrayList<>(actors);
+        while (!kept.isEmpty()) {
+            String value = toJson(kept);
+            if (value.length() <= MAX_LENGTH) {
+                return value;
+            }
+            kept.remove(kept.size() - 1);
+        }
+        return null;
+    }
+
+    public static List<String> decode(String value) {
+        if (value == null || value.isEmpty()) {
+            return List.of();
+        }
+        if (value.startsWith("[")) {
+            try {
+                return List.copyOf(OBJECT_MAPPER.readValue(value, LIST_TYPE));
+            } catch (JsonProcessingException e) {
+                // '[' 로 시작하는 이름이 들어 있던 예전 형식
+            }
+        }
+        return List.of(value.split(","));
+    }
+
+    private static String toJson(List<String> actors) {
+        try {
+            return OBJECT_MAPPER.writeValueAsString(actors);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode recent actors", e);
+        }
+    }
+}
@@ -16,5 +16,6 @@ public interface CommentHierarchyProjection {
     Integer getHierarchyDepth();        // hierarchy_depth
     String getPath();                   // path
     Long getReplyCount();  // 추가
+    Long getLikeCount();                // like_count
 
 }
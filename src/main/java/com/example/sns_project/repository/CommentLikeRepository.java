@@ -0,0 +1,44 @@
+package com.example.sns_project.repository;
+
+import com.example.sns_project.model.CommentLike;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+// 댓글 좋아요 데이터 접근 (댓글/사용자의 좋아요 컬렉션을 읽지 않고 (comment_id, user_id) 로 직접 처리)
+public interface CommentLikeRepository extends JpaRepository<CommentLike, Long> {
+    boolean existsByCommentIdAndUserId(Long commentId, Long userId);
+
+    // 좋아요 취소 (DELETE 한 번, 삭제된 행 수 반환)
+    @Modifying
+    @Query("DELETE FROM CommentLike cl WHERE cl.comment.id = :commentId AND cl.user.id = :userId")
+    int deleteByCommentIdAndUserId(@Param("commentId") Long commentId, @Param("userId") Long userId);
+
+    // 유니크 인덱스 도입 전 데이터 정리용
+
+    @Query(value = """
+    SELECT COUNT(*) FROM information_schema.statistics
+    WHERE table_schema = DATABASE() AND table_name = 'comment_likes' AND index_name = 'idx_comment_user'
+""", nativeQuery = true)
+    long countUniqueIndex();
+
+    // 같은 사용자가 같은 댓글에 누른 좋아요가 여러 행이면 가장 먼저 만든 행만 남김
+    @Transactional
+    @Modifying
+    @Query(value = """
+    DELETE FROM comment_likes
+    WHERE id NOT IN (
+        SELECT id FROM (
+            SELECT MIN(id) AS id FROM comment_likes GROUP BY comment_id, user_id
+        ) kept
+    )
+""", nativeQuery = true)
+    int deleteDuplicateLikes();
+
+    @Transactional
+    @Modifying
+    @Query(value = "CREATE UNIQUE INDEX idx_comment_user ON comment_likes (comment_id, user_id)", nativeQuery = true)
+    void createUniqueIndex();
+}
@@ -7,11 +7,17 @@ import com.example.sns_project.model.Comment;
 import com.example.sns_project.projection.CommentHierarchyProjection;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
 
@@ -27,7 +33,8 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
         c.parentComment.id,
         c.user.id,
         c.user.username,
-        (SELECT COUNT(r) FROM Comment r WHERE r.parentComment.id = c.id)
+        c.replyCount,
+        c.likeCount
     )
     FROM Comment c 
     WHERE c.post.id = :postId 
@@ -67,113 +74,274 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
             Pageable pageable
     );
 
-    @Query("""
-    SELECT EXISTS (
-        SELECT 1 FROM CommentLike cl 
-        WHERE cl.comment.id = :commentId 
-        AND cl.user.id = :userId
-    )
-    """)
-    boolean existsByCommentIdAndUserId(
-            @Param("commentId") Long commentId,
-            @Param("userId") Long userId
-    );
+    // 댓글 작성자 ID (좋아요 알림용, 댓글이 없으면 empty)
+    @Query("SELECT c.user.id FROM Comment c WHERE c.id = :commentId")
+    Optional<Long> findUserIdById(@Param("commentId") Long commentId);
 
 
+    // 하위 댓글 전체를 경로 순(부모 다음에 자식, 형제는 작성순)으로 조회
+    // 부모는 PK 로 한 건만 읽히므로 자식 조회는 idx_comment_path 의 구간 스캔 한 번
     @Query(value = """
-    WITH RECURSIVE CommentHierarchy AS (
-        -- 초기 선택: 첫 번째 레벨의 자식들
-        SELECT
-            c.id,
-            c.content,
-            c.created_date,
-            c.modified_date,
-            c.depth,
-            c.parent_comment_id,
-            c.post_id,
-            c.user_id,
-            1 as hierarchy_depth,
-            CAST(c.id AS CHAR(255)) AS path
-        FROM SNS.comments c
-        WHERE c.parent_comment_id = :parentId
-
-        UNION ALL
-
-        -- 재귀 부분: 각 레벨의 자식들을 연속해서 선택
-        SELECT
-            c.id,
-            c.content,
-            c.created_date,
-            c.modified_date,
-            c.depth,
-            c.parent_comment_id,
-            c.post_id,
-            c.user_id,
-            h.hierarchy_depth + 1,
-            CONCAT(h.path, ',', c.id)
-        FROM SNS.comments c
-        INNER JOIN CommentHierarchy h ON c.parent_comment_id = h.id
-        WHERE h.hierarchy_depth < 10
-    )
     SELECT
-        c.*,
-        u.id as author_id,
-        u.username as author_name,
-        u.email as author_email
-    FROM CommentHierarchy c
-    JOIN SNS.users u ON c.user_id = u.id
+        c.id AS id,
+        c.content AS content,
+        c.created_date AS createdDate,
+        c.modified_date AS modifiedDate,
+        c.depth AS depth,
+        c.parent_comment_id AS parentCommentId,
+        c.post_id AS postId,
+        c.user_id AS userId,
+        u.username AS authorName,
+        u.email AS authorEmail,
+        c.depth - p.depth AS hierarchyDepth,
+        c.path AS path,
+        c.reply_count AS replyCount,
+        c.like_count AS likeCount
+    FROM comments p
+    JOIN comments c ON c.path > p.path AND c.path < CONCAT(p.path, ':')
+    JOIN users u ON c.user_id = u.id
+    WHERE p.id = :parentId
     ORDER BY c.path
 """, nativeQuery = true)
-    List<Comment> findAllChildrenHierarchy(@Param("parentId") Long parentId);
+    List<CommentHierarchyProjection> findAllChildrenHierarchyProjection(@Param("parentId") Long parentId);
+
+    // 하위 댓글 구간([path, upperBound))의 작성 시간 (삭제 시 랭킹 차감용, 자신 포함)
+    @Query("SELECT c.createdDate FROM Comment c WHERE c.path >= :path AND c.path < :upperBound")
+    List<LocalDateTime> findSubtreeCreatedDates(@Param("path") String path, @Param("upperBound") String upperBound);
+
+    // 하위 댓글 구간의 좋아요 삭제
+    @Modifying
+    @Query(value = """
+    DELETE cl FROM comment_likes cl
+    JOIN comments c ON cl.comment_id = c.id
+    WHERE c.path >= :path AND c.path < :upperBound
+""", nativeQuery = true)
+    int deleteSubtreeLikes(@Param("path") String path, @Param("upperBound") String upperBound);
+
+    // 하위 댓글 구간 삭제 (깊은 댓글부터 지워 parent_comment_id 외래 키에 걸리지 않게 함)
+    @Modifying
+    @Query(value = """
+    DELETE FROM comments
+    WHERE path >= :path AND path < :upperBound
+    ORDER BY path DESC
+""", nativeQuery = true)
+    int deleteSubtree(@Param("path") String path, @Param("upperBound") String upperBound);
+
+    boolean existsByPathIsNull();
+
+    @Query("SELECT MAX(c.id) FROM Comment c")
+    Long findMaxId();
+
+    // 경로가 없는 댓글의 경로 채우기 (깊이별로 부모부터, id 구간마다 별도 트랜잭션)
+    @Transactional
+    @Modifying
+    @Query(value = """
+    UPDATE comments c
+    LEFT JOIN comments p ON c.parent_comment_id = p.id
+    SET c.path = CONCAT(COALESCE(p.path, ''), LPAD(c.id, 12, '0'))
+    WHERE c.path IS NULL
+    AND c.depth = :depth
+    AND c.id > :fromId AND c.id <= :toId
+    AND (c.parent_comment_id IS NULL OR p.path IS NOT NULL)
+""", nativeQuery = true)
+    int fillPaths(@Param("depth") int depth, @Param("fromId") Long fromId, @Param("toId") Long toId);
 
 
 
+    // 댓글 좋아요 수 / 대댓글 수 카운터 재계산
+    @Modifying
     @Query(value = """
-    WITH RECURSIVE CommentHierarchy AS (
-        -- 초기 선택: 첫 번째 레벨의 자식들
-        SELECT
-            c.id,
-            c.content,
-            c.created_date,
-            c.modified_date,
-            c.depth,
-            c.parent_comment_id,
-            c.post_id,
-            c.user_id,
-            1 as hierarchy_depth,
-            CAST(c.id AS CHAR(255)) AS path
-        FROM SNS.comments c
-        WHERE c.parent_comment_id = :parentId
-
-        UNION ALL
-
-        -- 재귀 부분: 각 레벨의 자식들을 연속해서 선택
-        SELECT
-            c.id,
-            c.content,
-            c.created_date,
-            c.modified_date,
-            c.depth,
-            c.parent_comment_id,
-            c.post_id,
-            c.user_id,
-            h.hierarchy_depth + 1,
-            CONCAT(h.path, ',', c.id)
-        FROM SNS.comments c
-        INNER JOIN CommentHierarchy h ON c.parent_comment_id = h.id
-        WHERE h.hierarchy_depth < 10
+    UPDATE comments c
+    LEFT JOIN (SELECT comment_id, COUNT(*) AS cnt FROM comment_likes GROUP BY comment_id) l ON l.comment_id = c.id
+    SET c.like_count = COALESCE(l.cnt, 0)
+    """, nativeQuery = true)
+    int recalculateLikeCounts();
+
+    @Modifying
+    @Query(value = """
+    UPDATE comments c
+    LEFT JOIN (SELECT parent_comment_id, COUNT(*) AS cnt FROM comments
+               WHERE parent_comment_id IS NOT NULL GROUP BY parent_comment_id) r ON r.parent_comment_id = c.id
+    SET c.reply_count = COALESCE(r.cnt, 0)
+    """, nativeQuery = true)
+    int recalculateReplyCounts();
+
+    // 커서 기반 루트 댓글 조회 (작성순, idx_comment_post_parent_created 사용)
+    @Query("""
+    SELECT new com.example.sns_project.dto.CommentHierarchyDTO(
+        c.id,
+        c.post.id,
+        c.content,
+        c.createdDate,
+        c.modifiedDate,
+        c.depth,
+        c.parentComment.id,
+        c.user.id,
+        c.user.username,
+        c.replyCount,
+        c.likeCount
     )
-    SELECT
-        c.*,
-        u.id as author_id,
-        u.username as author_name,
-        u.email as author_email
-    FROM CommentHierarchy c
-    JOIN SNS.users u ON c.user_id = u.id
-    ORDER BY c.path
-""", nativeQuery = true)    List<CommentHierarchyProjection> findAllChildrenHierarchyProjection(@Param("parentId") Long parentId);
+    FROM Comment c
+    WHERE c.post.id = :postId
+    AND c.parentComment IS NULL
+    ORDER BY c.createdDate ASC, c.id ASC
+""")
+    List<CommentHierarchyDTO> findRootCommentsDtoFirst(@Param("postId") Long postId, Pageable pageable);
 
+    @Query("""
+    SELECT new com.example.sns_project.dto.CommentHierarchyDTO(
+        c.id,
+        c.post.id,
+        c.content,
+        c.createdDate,
+        c.modifiedDate,
+        c.depth,
+        c.parentComment.id,
+        c.user.id,
+        c.user.username,
+        c.replyCount,
+        c.likeCount
+    )
+    FROM Comment c
+    WHERE c.post.id = :postId
+    AND c.parentComment IS NULL
+    AND (c.createdDate > :createdDate OR (c.createdDate = :createdDate AND c.id > :id))
+    ORDER BY c.createdDate ASC, c.id ASC
+""")
+    List<CommentHierarchyDTO> findRootCommentsDtoAfter(@Param("postId") Long postId,
+                                                       @Param("createdDate") LocalDateTime createdDate,
+                                                       @Param("id") Long id,
+                                                       Pageable pageable);
+
+    // 커서 기반 직계 대댓글 조회 (작성순, idx_comment_parent_created 사용)
+    @Query("""
+    SELECT new com.example.sns_project.dto.CommentHierarchyDTO(
+        c.id,
+        c.post.id,
+        c.content,
+        c.createdDate,
+        c.modifiedDate,
+        c.depth,
+        c.parentComment.id,
+        c.user.id,
+        c.user.username,
+        c.replyCount,
+        c.likeCount
+    )
+    FROM Comment c
+    WHERE c.parentComment.id = :parentId
+    ORDER BY c.createdDate, c.id
+""")
+    List<CommentHierarchyDTO> findChildCommentsDtoFirst(@Param("parentId") Long parentId, Pageable pageable);
+
+    @Query("""
+    SELECT new com.example.sns_project.dto.CommentHierarchyDTO(
+        c.id,
+        c.post.id,
+        c.content,
+        c.createdDate,
+        c.modifiedDate,
+        c.depth,
+        c.parentComment.id,
+        c.user.id,
+        c.user.username,
+        c.replyCount,
+        c.likeCount
+    )
+    FROM Comment c
+    WHERE c.parentComment.id = :parentId
+    AND (c.createdDate > :createdDate OR (c.createdDate = :createdDate AND c.id > :id))
+    ORDER BY c.createdDate, c.id
+""")
+    List<CommentHierarchyDTO> findChildCommentsDtoAfter(@Param("parentId") Long parentId,
+                                                        @Param("createdDate") LocalDateTime createdDate,
+                                                        @Param("id") Long id,
+                                                        Pageable pageable);
+
+    // 인기 게시물 랭킹 재구성용 게시물별 댓글 수 ([postId, count], 대댓글 포함)
+    @Query("SELECT c.post.id, COUNT(c) FROM Comment c GROUP BY c.post.id")
+    List<Object[]> countCommentsGroupByPost();
+
+    // 재구성 중 바뀐 게시물만 다시 집계 ([postId, count])
+    @Query("SELECT c.post.id, COUNT(c) FROM Comment c WHERE c.post.id IN :postIds GROUP BY c.post.id")
+    List<Object[]> countCommentsByPostIds(@Param("postIds") Collection<Long> postIds);
+
+    // 실시간 인기 게시물 엔진 초기화용 최근 댓글 ([postId, createdDate])
+    @Query("SELECT c.post.id, c.createdDate FROM Comment c WHERE c.createdDate >= :since")
+    List<Object[]> findCommentActivitySince(@Param("since") LocalDateTime since);
+
+    // 댓글 스레드 페이지용 루트 댓글 조회 (작성순, 전체 개수 대신 size + 1 개를 읽어 다음 페이지 여부만 판단)
+    @Query("""
+    SELECT new com.example.sns_project.dto.CommentHierarchyDTO(
+        c.id,
+        c.post.id,
+        c.content,
+        c.createdDate,
+        c.modifiedDate,
+        c.depth,
+        c.parentComment.id,
+        c.user.id,
+        c.user.username,
+        c.replyCount,
+        c.likeCount
+    )
+    FROM Comment c
+    WHERE c.post.id = :postId
+    AND c.parentComment IS NULL
+    ORDER BY c.createdDate ASC, c.id ASC
+""")
+    Slice<CommentHierarchyDTO> findRootCommentsSlice(@Param("postId") Long postId, Pageable pageable);
+
+    // 여러 댓글을 ID 로 한 번에 조회 (대댓글 목록은 비어 있음)
+    @Query("""
+    SELECT new com.example.sns_project.dto.CommentHierarchyDTO(
+        c.id,
+        c.post.id,
+        c.content,
+        c.createdDate,
+        c.modifiedDate,
+        c.depth,
+        c.parentComment.id,
+        c.user.id,
+        c.user.username,
+        c.replyCount,
+        c.likeCount
+    )
+    FROM Comment c
+    WHERE c.id IN :ids
+""")
+    List<CommentHierarchyDTO> findHierarchyByIds(@Param("ids") Collection<Long> ids);
+
+    // 여러 루트 댓글의 앞쪽 대댓글 limit 개씩을 한 번에 조회 (부모별 작성순, idx_comment_parent_created 사용)
+    @Query(value = """
+    SELECT
+        r.id AS id,
+        r.content AS content,
+        r.created_date AS createdDate,
+        r.modified_date AS modifiedDate,
+        r.depth AS depth,
+        r.parent_comment_id AS parentCommentId,
+        r.post_id AS postId,
+        r.user_id AS userId,
+        u.username AS authorName,
+        r.reply_count AS replyCount,
+        r.like_count AS likeCount
+    FROM (
+        SELECT c.*,
+               ROW_NUMBER() OVER (PARTITION BY c.parent_comment_id ORDER BY c.created_date, c.id) AS rn
+        FROM comments c
+        WHERE c.parent_comment_id IN (:parentIds)
+    ) r
+    JOIN users u ON r.user_id = u.id
+    WHERE r.rn <= :limit
+    ORDER BY r.parent_comment_id, r.rn
+""", nativeQuery = true)
+    List<CommentHierarchyProjection> findFirstRepliesByParentIds(@Param("parentIds") Collection<Long> parentIds,
+                                                                 @Param("limit") int limit);
 
+    // 댓글이 속한 게시물 ID (카운터 반영 후 스레드 캐시 무효화용)
+    @Query("SELECT DISTINCT c.post.id FROM Comment c WHERE c.id IN :ids")
+    List<Long> findPostIdsByIds(@Param("ids") Collection<Long> ids);
 
     // 최상위 댓글 페이징 조회
     Page<Comment> findByPostIdAndParentCommentIsNull(Long postId, Pageable pageable);
@@ -1,27 +1,94 @@
 package com.example.sns_project.repository;
 
-import com.example.sns_project.dto.UserDTO;
 import com.example.sns_project.model.Friendship;
-import com.example.sns_project.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * 친구 관계는 (작은 ID, 큰 ID) 순서로 한 행만 저장하므로 두 사용자 조회는 유니크 인덱스 idx_friendships_users 한 번으로 끝납니다.
+ * 한 사용자의 친구는 user1_id 쪽(유니크 인덱스)과 user2_id 쪽(외래 키 인덱스)을 UNION ALL 로 각각 읽습니다.
+ */
 public interface FriendshipRepository extends JpaRepository<Friendship, Long> {
-    @Query("SELECT new com.example.sns_project.dto.UserDTO(u.id, u.username, u.email) FROM User u JOIN Friendship f ON (f.user1 = u OR f.user2 = u) WHERE (f.user1.id = :userId AND u.id = f.user2.id) OR (f.user2.id = :userId AND u.id = f.user1.id)")
-    List<UserDTO> findFriendsByUserId(@Param("userId") Long userId);
 
-    @Query("SELECT f FROM Friendship f WHERE (f.user1.id = :userId1 AND f.user2.id = :userId2) OR (f.user1.id = :userId2 AND f.user2.id = :userId1)")
-    Optional<Friendship> findByUserIds(@Param("userId1") Long userId1, @Param("userId2") Long userId2);
+    Optional<Friendship> findByUser1IdAndUser2Id(Long user1Id, Long user2Id);
 
     boolean existsByUser1IdAndUser2Id(Long user1Id, Long user2Id);
 
-    @Query("SELECT COUNT(f) > 0 FROM Friendship f WHERE " +
-            "(f.user1.id = :id1 AND f.user2.id = :id2) OR " +
-            "(f.user1.id = :id2 AND f.user2.id = :id1)")
-    boolean existsFriendship(@Param("id1") Long id1, @Param("id2") Long id2);
+    default Optional<Friendship> findByUserIds(Long userId1, Long userId2) {
+        return findByUser1IdAndUser2Id(Math.min(userId1, userId2), Math.max(userId1, userId2));
+    }
 
+    default boolean existsFriendship(Long userId1, Long userId2) {
+        return existsByUser1IdAndUser2Id(Math.min(userId1, userId2), Math.max(userId1, userId2));
+    }
+
+    // 친구 ID 만 조회 (타임라인 fan-out 대상)
+    @Query(value = """
+    SELECT user2_id FROM friendships WHERE user1_id = :userId
+    UNION ALL
+    SELECT user1_id FROM friendships WHERE user2_id = :userId
+""", nativeQuery = true)
+    List<Long> findFriendIdsByUserId(@Param("userId") Long userId);
+
+    // candidateIds 중 userId 의 친구인 ID
+    @Query(value = """
+    SELECT user2_id FROM friendships WHERE user1_id = :userId AND user2_id IN (:candidateIds)
+    UNION ALL
+    SELECT user1_id FROM friendships WHERE user2_id = :userId AND user1_id IN (:candidateIds)
+""", nativeQuery = true)
+    List<Long> findFriendIdsAmong(@Param("userId") Long userId, @Param("candidateIds") Collection<Long> candidateIds);
+
+    // 정렬 순서 도입 전 데이터 정리용
+
+    @Query(value = "SELECT COUNT(*) FROM friendships WHERE user1_id > user2_id", nativeQuery = true)
+    long countMisordered();
+
+    @Query(value = """
+    SELECT COUNT(*) FROM information_schema.statistics
+    WHERE table_schema = DATABASE() AND table_name = 'friendships' AND index_name = 'idx_friendships_users'
+""", nativeQuery = true)
+    long countUniqueIndex();
+
+    @Query("SELECT MAX(f.id) FROM Friendship f")
+    Long findMaxId();
+
+    // 방향과 관계없이 같은 두 사용자의 관계가 여러 행이면 가장 먼저 만든 행만 남김
+    @Transactional
+    @Modifying
+    @Query(value = """
+    DELETE FROM friendships
+    WHERE id NOT IN (
+        SELECT id FROM (
+            SELECT MIN(id) AS id FROM friendships
+            GROUP BY LEAST(user1_id, user2_id), GREATEST(user1_id, user2_id)
+        ) kept
+    )
+""", nativeQuery = true)
+    int deleteDuplicatePairs();
+
+    // (큰 ID, 작은 ID) 로 저장된 행을 뒤집음 (파생 테이블에 미리 읽어 둔 값으로 바꾸므로 SET 평가 순서와 무관, id 구간마다 별도 트랜잭션)
+    @Transactional
+    @Modifying
+    @Query(value = """
+    UPDATE friendships f
+    JOIN (
+        SELECT id, user1_id, user2_id FROM friendships
+        WHERE user1_id > user2_id AND id > :fromId AND id <= :toId
+    ) reversed ON reversed.id = f.id
+    SET f.user1_id = reversed.user2_id,
+        f.user2_id = reversed.user1_id
+""", nativeQuery = true)
+    int normalizeOrder(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    @Transactional
+    @Modifying
+    @Query(value = "CREATE UNIQUE INDEX idx_friendships_users ON friendships (user1_id, user2_id)", nativeQuery = true)
+    void createUniqueIndex();
 }
@@ -3,7 +3,15 @@ package com.example.sns_project.repository;
 // 알림 데이터 접근을 위한 JPA 레포지토리
 import com.example.sns_project.enums.NotificationType;
 import com.example.sns_project.model.Notification;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
@@ -11,8 +19,37 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     List<Notification>findByUserIdAndIsRead(Long userId, boolean bool);
 
     Long countByUserIdAndIsRead(Long userId, boolean isRead);
+
+    // 사용자의 읽지 않은 알림을 UPDATE 한 번으로 읽음 처리
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.user.id = :userId AND n.isRead = false")
+    int markAllAsReadByUserId(@Param("userId") Long userId);
+
+    // id 구간(fromId, toId] 의 사용자에게 같은 알림을 INSERT ... SELECT 한 번으로 저장 (구간마다 별도 트랜잭션)
+    @Transactional
+    @Modifying
+    @Query(value = """
+    INSERT INTO notifications (user_id, message, notification_type, is_read, created_date)
+    SELECT u.id, :message, :notificationType, false, :createdDate
+    FROM users u
+    WHERE u.id > :fromId AND u.id <= :toId
+""", nativeQuery = true)
+    int insertForUserRange(@Param("message") String message,
+                           @Param("notificationType") String notificationType,
+                           @Param("createdDate") LocalDateTime createdDate,
+                           @Param("fromId") Long fromId,
+                           @Param("toId") Long toId);
+
+    // 여러 사용자의 읽지 않은 알림 수 (실시간 전송 배치용)
+    @Query("SELECT n.user.id, COUNT(n) FROM Notification n WHERE n.user.id IN :userIds AND n.isRead = false GROUP BY n.user.id")
+    List<Object[]> countUnreadGroupByUser(@Param("userIds") Collection<Long> userIds);
     List<Notification> findByUserIdAndNotificationType(Long userId, NotificationType type);
 
+    // 커서 기반 페이징 (최신순, idx_notifications_user_id 사용, COUNT 쿼리 없음)
+    List<Notification> findByUserIdOrderByIdDesc(Long userId, Pageable pageable);
+
+    List<Notification> findByUserIdAndIdLessThanOrderByIdDesc(Long userId, Long id, Pageable pageable);
+
 
     // 앞으로: 추가적인 쿼리 메서드 정의 (예: 알림 삭제 등)
 }
@@ -2,11 +2,32 @@ package com.example.sns_project.repository;
 
 import com.example.sns_project.model.PostLike;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface PostLikeRepository extends JpaRepository<PostLike, Long> {
     boolean existsByPostIdAndUserId(Long postId, Long userId);
 
     Optional<PostLike> findByPostIdAndUserId(Long postId, Long userId);  // 좋아요 취소를 위한 메서드
+
+    // 목록에서 조회자가 좋아요를 누른 게시물 ID (idx_post_user 로 게시물마다 한 번씩 확인)
+    @Query("SELECT pl.post.id FROM PostLike pl WHERE pl.user.id = :userId AND pl.post.id IN :postIds")
+    List<Long> findLikedPostIds(@Param("userId") Long userId, @Param("postIds") Collection<Long> postIds);
+
+    // 인기 게시물 랭킹 재구성용 게시물별 좋아요 수 ([postId, count])
+    @Query("SELECT pl.post.id, COUNT(pl) FROM PostLike pl GROUP BY pl.post.id")
+    List<Object[]> countLikesGroupByPost();
+
+    // 재구성 중 바뀐 게시물만 다시 집계 ([postId, count])
+    @Query("SELECT pl.post.id, COUNT(pl) FROM PostLike pl WHERE pl.post.id IN :postIds GROUP BY pl.post.id")
+    List<Object[]> countLikesByPostIds(@Param("postIds") Collection<Long> postIds);
+
+    // 실시간 인기 게시물 엔진 초기화용 최근 좋아요 ([postId, createdDate])
+    @Query("SELECT pl.post.id, pl.createdDate FROM PostLike pl WHERE pl.createdDate >= :since")
+    List<Object[]> findLikeActivitySince(@Param("since") LocalDateTime since);
 }
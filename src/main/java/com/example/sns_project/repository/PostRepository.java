@@ -2,20 +2,33 @@ package com.example.sns_project.repository;
 
 // 게시글 데이터 접근을 위한 JPA 레포지토리
 import com.example.sns_project.dto.PostDetailDTO;
+import com.example.sns_project.dto.PostSummaryDTO;
 import com.example.sns_project.model.Post;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 public interface PostRepository extends JpaRepository<Post, Long> {
+    // 목록용 요약: 본문은 앞 200자(PostSummaryDTO.EXCERPT_LENGTH)만, 좋아요 컬렉션은 읽지 않음
+    String SUMMARY_SELECT = """
+            SELECT new com.example.sns_project.dto.PostSummaryDTO(
+                p.id, p.title, SUBSTRING(p.content, 1, 200),
+                u.id, u.username, u.email,
+                p.likeCount, p.commentCount, p.createdDate
+            )
+            FROM Post p JOIN p.user u
+            """;
+
     List<Post> findByUserId(Long authorId);  // user ID로 게시글 조회
     List<Post> findAllByOrderByCreatedDateDesc(); // 최신 게시글 정렬
 
@@ -24,7 +37,8 @@ public interface PostRepository extends JpaRepository<Post, Long> {
     SELECT new com.example.sns_project.dto.PostDetailDTO(
         p.id, p.title, p.content,
         p.user.id, p.user.username, p.user.email,
-        (SELECT COUNT(pl) FROM PostLike pl WHERE pl.post = p),
+        p.likeCount,
+        p.commentCount,
         (SELECT COUNT(pl) > 0 FROM PostLike pl WHERE pl.post = p AND pl.user.id = :userId),
         p.createdDate
     )
@@ -33,6 +47,21 @@ public interface PostRepository extends JpaRepository<Post, Long> {
 """)
     Optional<PostDetailDTO> findPostDetailById(@Param("postId") Long postId, @Param("userId") Long userId);
 
+    // 여러 게시물 상세 (캐시용 공통 부분만, 좋아요 여부는 호출 측에서 채움)
+    @Query("""
+    SELECT new com.example.sns_project.dto.PostDetailDTO(
+        p.id, p.title, p.content,
+        p.user.id, p.user.username, p.user.email,
+        p.likeCount,
+        p.commentCount,
+        FALSE,
+        p.createdDate
+    )
+    FROM Post p
+    WHERE p.id IN :postIds
+""")
+    List<PostDetailDTO> findPostDetailsByIds(@Param("postIds") Collection<Long> postIds);
+
     @Query("SELECT COUNT(p) as totalPosts, " +
             "COUNT(DISTINCT c) as totalComments, " +
             "COALESCE(AVG(SIZE(p.likes)), 0) as averagePostLikes, " +
@@ -50,30 +79,46 @@ public interface PostRepository extends JpaRepository<Post, Long> {
     @Query("SELECT p.id FROM Post p")
     List<Long> findPostIdsByPage(Pageable pageable);
 
+    @Query("SELECT p.id FROM Post p WHERE p.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
     @Query("SELECT p FROM Post p LEFT JOIN FETCH p.likes WHERE p.id IN :ids")
     List<Post> findAllWithLikesByIds(@Param("ids") List<Long> ids);
 
-    /**
-     * 전체 인기 게시물 조회 쿼리
-     */
-    @Query("SELECT p FROM Post p " +
-            "LEFT JOIN p.likes l " +
-            "LEFT JOIN p.comments c " +
-            "GROUP BY p.id " +
-            "ORDER BY COUNT(DISTINCT l) DESC, COUNT(DISTINCT c) DESC")
-    Page<Post> findPopularPosts(Pageable pageable);
-
-
-    /**
-     * 실시간 인기 게시물 조회 쿼리
-     */
-    @Query("SELECT p FROM Post p " +
-            "LEFT JOIN p.likes l " +
-            "LEFT JOIN p.comments c " +
-            "WHERE l.createdDate >= :oneDayAgo OR c.createdDate >= :oneDayAgo " +
-            "GROUP BY p.id, p.title, p.content, p.createdDate " +
-            "ORDER BY (COUNT(DISTINCT CASE WHEN l.createdDate >= :oneDayAgo THEN l END) * 2 + " +
-            "COUNT(DISTINCT CASE WHEN c.createdDate >= :oneDayAgo THEN c END)) DESC")
-    List<Post> findHotPosts(LocalDateTime oneDayAgo, Pageable pageable);
+    // 좋아요 수 / 댓글 수 카운터 재계산
+    @Modifying
+    @Query(value = """
+    UPDATE posts p
+    LEFT JOIN (SELECT post_id, COUNT(*) AS cnt FROM post_likes GROUP BY post_id) l ON l.post_id = p.id
+    LEFT JOIN (SELECT post_id, COUNT(*) AS cnt FROM comments GROUP BY post_id) c ON c.post_id = p.id
+    SET p.like_count = COALESCE(l.cnt, 0),
+        p.comment_count = COALESCE(c.cnt, 0)
+    """, nativeQuery = true)
+    int recalculateCounts();
+
+    // 전체 내보내기용: lastId 다음부터 id 순으로 한 구간 (기본키 범위 조회라 구간마다 짧은 쿼리 하나)
+    @Query(SUMMARY_SELECT + "WHERE p.id > :lastId ORDER BY p.id")
+    List<PostSummaryDTO> findSummariesAfter(@Param("lastId") Long lastId, Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT, countQuery = "SELECT COUNT(p) FROM Post p")
+    Page<PostSummaryDTO> findSummaries(Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE u.id = :userId")
+    List<PostSummaryDTO> findSummariesByUserId(@Param("userId") Long userId);
+
+    @Query(SUMMARY_SELECT + "WHERE p.id IN :ids")
+    List<PostSummaryDTO> findSummariesByIds(@Param("ids") Collection<Long> ids);
+
+    // 커서 기반 페이징 (최신순, idx_posts_created_id 사용, COUNT 쿼리 없음)
+    @Query(SUMMARY_SELECT + "ORDER BY p.createdDate DESC, p.id DESC")
+    List<PostSummaryDTO> findLatestSummaries(Pageable pageable);
+
+    @Query(SUMMARY_SELECT +
+            "WHERE p.createdDate < :createdDate OR (p.createdDate = :createdDate AND p.id < :id) " +
+            "ORDER BY p.createdDate DESC, p.id DESC")
+    List<PostSummaryDTO> findLatestSummariesBefore(@Param("createdDate") LocalDateTime createdDate,
+                                                   @Param("id") Long id,
+                                                   Pageable pageable);
+
     // 앞으로: 추가적인 쿼리 메서드 정의 (예: 게시글 삭제 등)
 }
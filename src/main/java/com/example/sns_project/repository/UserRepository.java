@@ -4,6 +4,7 @@ package com.example.sns_project.repository;
 
 import aj.org.objectweb.asm.commons.Remapper;
 import com.example.sns_project.dto.LoginUserDTO;
+import com.example.sns_project.dto.UserDTO;
 import com.example.sns_project.dto.UserDetailsDTO;
 import com.example.sns_project.model.User;
 import org.springframework.data.domain.Pageable;
@@ -12,6 +13,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +22,10 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByUsername(String username); // 사용자 이름으로 조회
 
+    // 가장 큰 사용자 ID (전체 발송 시 id 구간 분할용)
+    @Query("SELECT MAX(u.id) FROM User u")
+    Long findMaxId();
+
     // 친구가 아닌 사용자 목록 조회
     @Query("SELECT u FROM User u WHERE u.id NOT IN (SELECT f.user2.id FROM Friendship f WHERE f.user1.id = :userId) AND u.id <> :userId")
     List<User> findNonFriendsByUserId(@Param("userId") Long userId);
@@ -83,6 +89,10 @@ public interface UserRepository extends JpaRepository<User, Long> {
         """)
     Optional<UserDetailsDTO> findUserDetailsDTO(@Param("username") String username);
 
+    // 여러 사용자 기본 정보 (친구 목록 등)
+    @Query("SELECT new com.example.sns_project.dto.UserDTO(u.id, u.username, u.email) FROM User u WHERE u.id IN :ids ORDER BY u.id")
+    List<UserDTO> findUserDTOsByIds(@Param("ids") Collection<Long> ids);
+
 
 
 }
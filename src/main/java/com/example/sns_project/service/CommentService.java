@@ -1,7 +1,11 @@
 package com.example.sns_project.service;
 
 import com.example.sns_project.dto.CommentDTO;
+import com.example.sns_project.cache.TwoTierCache;
 import com.example.sns_project.dto.CommentHierarchyDTO;
+import com.example.sns_project.dto.CommentThreadPage;
+import com.example.sns_project.dto.CursorPage;
+import com.example.sns_project.dto.MultiGetResponse;
 import com.example.sns_project.exception.AlreadyLikedException;
 import com.example.sns_project.exception.ApiException;
 import com.example.sns_project.exception.ResourceNotFoundException;
@@ -11,31 +15,50 @@ import com.example.sns_project.model.CommentLike;
 import com.example.sns_project.model.Post;
 import com.example.sns_project.model.User;
 import com.example.sns_project.projection.CommentHierarchyProjection;
+import com.example.sns_project.repository.CommentLikeRepository;
 import com.example.sns_project.repository.CommentRepository;
 import com.example.sns_project.repository.PostRepository;
 import com.example.sns_project.repository.UserRepository;
+import com.example.sns_project.util.CursorUtils;
+import com.example.sns_project.util.TransactionUtils;
 import org.springframework.transaction.annotation.Transactional;
 import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
+@Log4j2
 @Service
 @AllArgsConstructor
 public class CommentService {
     private static final int MAX_DEPTH = 10;
+    private static final long PATH_BACKFILL_CHUNK_SIZE = 10_000;
+    private static final String COMMENT_LIKE_UNIQUE_INDEX = "idx_comment_user";
+    private static final int THREAD_PAGE_SIZE = 10;       // 캐시하는 스레드 페이지 크기 (다른 크기는 바로 조회)
+    private static final int CACHED_THREAD_PAGES = 3;     // 게시물마다 캐시하는 앞쪽 페이지 수
+    private static final int REPLY_PREVIEW_SIZE = 2;      // 루트 댓글마다 함께 보여줄 대댓글 수
 
     private final CommentRepository commentRepository;
+    private final CommentLikeRepository commentLikeRepository;
     private final PostRepository postRepository;
     private final UserRepository userRepository;
     private final UserService userService;
     private final NotificationService notificationService;
+    private final PopularPostRankingService popularPostRankingService;
+    private final HotPostEngine hotPostEngine;
+    private final CounterService counterService;
+    private final TwoTierCache<CommentThreadPage> commentThreadCache;
 
     @Transactional
     public CommentDTO createComment(Long parentCommentId, CommentDTO commentDTO) {
@@ -68,6 +91,14 @@ public class CommentService {
         }
 
         commentRepository.save(comment);
+        comment.assignPath(); // IDENTITY 라 INSERT 후에 ID 가 정해지므로 경로는 커밋 시 UPDATE 로 반영
+        popularPostRankingService.incrementComments(comment.getPost().getId(), 1);
+        hotPostEngine.recordComment(comment.getPost().getId(), comment.getCreatedDate(), 1);
+        counterService.increment(CounterService.CounterType.POST_COMMENT, comment.getPost().getId(), 1);
+        if (parentCommentId != null) {
+            counterService.increment(CounterService.CounterType.COMMENT_REPLY, parentCommentId, 1);
+        }
+        evictThread(comment.getPost().getId());
         return convertToDTO(comment);
     }
 
@@ -82,6 +113,7 @@ public class CommentService {
 
         comment.setContent(commentDTO.getContent());
         commentRepository.save(comment);
+        evictThread(comment.getPost().getId());
         return convertToDTO(comment);
     }
 
@@ -94,51 +126,188 @@ public class CommentService {
             throw new UnauthorizedException("You are not authorized to delete this comment");
         }
 
-        commentRepository.delete(comment);
+        // 하위 댓글도 함께 삭제되므로 삭제되는 댓글 수만큼 랭킹 점수 차감
+        Long postId = comment.getPost().getId();
+        List<LocalDateTime> deletedDates;
+        if (comment.getPath() != null && !commentRepository.existsByPathIsNull()) {
+            // 하위 댓글 전체가 경로 구간 하나이므로 엔티티를 읽지 않고 구간 단위로 삭제
+            // (경로가 빈 댓글이 남아 있으면 구간에서 빠진 자식이 외래 키에 걸리므로 아래 cascade 로 삭제)
+            String upperBound = Comment.pathUpperBound(comment.getPath());
+            deletedDates = commentRepository.findSubtreeCreatedDates(comment.getPath(), upperBound);
+            commentRepository.deleteSubtreeLikes(comment.getPath(), upperBound);
+            commentRepository.deleteSubtree(comment.getPath(), upperBound);
+        } else {
+            List<Comment> deletedComments = new ArrayList<>();
+            collectSubtree(comment, deletedComments);
+            deletedDates = deletedComments.stream().map(Comment::getCreatedDate).toList();
+            commentRepository.delete(comment);
+        }
+
+        popularPostRankingService.incrementComments(postId, -deletedDates.size());
+        deletedDates.forEach(createdDate -> hotPostEngine.recordComment(postId, createdDate, -1));
+        counterService.increment(CounterService.CounterType.POST_COMMENT, postId, -deletedDates.size());
+        if (comment.getParentComment() != null) {
+            counterService.increment(CounterService.CounterType.COMMENT_REPLY, comment.getParentComment().getId(), -1);
+        }
+        evictThread(postId);
+    }
+
+    private void collectSubtree(Comment comment, List<Comment> result) {
+        result.add(comment);
+        for (Comment child : comment.getChildrenComments()) {
+            collectSubtree(child, result);
+        }
     }
 
 
     @Transactional(readOnly = true)
     public Page<CommentHierarchyDTO> getRootComments(Long postId, Pageable pageable) {
-        return commentRepository.findRootCommentsDto(postId, pageable);
+        Page<CommentHierarchyDTO> rootComments = commentRepository.findRootCommentsDto(postId, pageable);
+        rootComments.forEach(this::applyPendingCounts);
+        return rootComments;
+    }
+
+    /**
+     * 게시물 댓글 스레드 페이지 (루트 댓글 작성순 + 루트마다 가장 먼저 달린 대댓글 REPLY_PREVIEW_SIZE 개)
+     * 앞쪽 CACHED_THREAD_PAGES 페이지는 게시물별로 캐시하고, 댓글 작성/수정/삭제와 카운터 반영 시 그 게시물의 항목만 지웁니다.
+     * 캐시된 페이지에는 아직 DB에 반영되지 않은 좋아요/대댓글 수를 복사본에 더해서 반환합니다.
+     */
+    public CommentThreadPage getCommentThread(Long postId, int page, int size) {
+        if (size != THREAD_PAGE_SIZE || page < 0 || page >= CACHED_THREAD_PAGES) {
+            return withPendingCounts(loadThreadPage(postId, page, size));
+        }
+        CommentThreadPage cached = commentThreadCache.get(threadCacheKey(postId, page),
+                () -> loadThreadPage(postId, page, size));
+        return withPendingCounts(cached);
+    }
+
+    private CommentThreadPage loadThreadPage(Long postId, int page, int size) {
+        int pageSize = CursorUtils.normalizeSize(size);
+        Slice<CommentHierarchyDTO> roots = commentRepository.findRootCommentsSlice(postId,
+                PageRequest.of(Math.max(page, 0), pageSize));
+        attachReplyPreviews(roots.getContent());
+        return new CommentThreadPage(postId, page, pageSize, roots.hasNext(), new ArrayList<>(roots.getContent()));
+    }
+
+    // 페이지의 루트 댓글들에 앞쪽 대댓글을 붙임 (루트 수와 관계없이 쿼리 한 번)
+    // reply_count 는 카운터 반영 전에는 실제보다 작을 수 있으므로 거르지 않음 (대댓글 없는 루트는 결과가 없을 뿐)
+    private void attachReplyPreviews(List<CommentHierarchyDTO> roots) {
+        if (roots.isEmpty()) {
+            return;
+        }
+        Map<Long, CommentHierarchyDTO> rootsById = roots.stream()
+                .collect(Collectors.toMap(CommentHierarchyDTO::getId, root -> root));
+        for (CommentHierarchyProjection reply : commentRepository.findFirstRepliesByParentIds(
+                rootsById.keySet(), REPLY_PREVIEW_SIZE)) {
+            rootsById.get(reply.getParentCommentId()).getReplies().add(toHierarchyDTO(reply));
+        }
+    }
+
+    private CommentHierarchyDTO toHierarchyDTO(CommentHierarchyProjection projection) {
+        return new CommentHierarchyDTO(projection.getId(), projection.getPostId(), projection.getContent(),
+                projection.getCreatedDate(), projection.getModifiedDate(), projection.getDepth(),
+                projection.getParentCommentId(), projection.getUserId(), projection.getAuthorName(),
+                projection.getReplyCount() != null ? projection.getReplyCount() : 0L,
+                projection.getLikeCount() != null ? projection.getLikeCount() : 0L);
+    }
+
+    private CommentThreadPage withPendingCounts(CommentThreadPage page) {
+        List<CommentHierarchyDTO> comments = page.getComments().stream()
+                .map(root -> {
+                    CommentHierarchyDTO copy = copyOf(root);
+                    copy.setReplies(root.getReplies().stream().map(this::copyOf).collect(Collectors.toList()));
+                    return copy;
+                })
+                .collect(Collectors.toList());
+        return new CommentThreadPage(page.getPostId(), page.getPage(), page.getSize(), page.isHasNext(), comments);
+    }
+
+    private CommentHierarchyDTO copyOf(CommentHierarchyDTO source) {
+        CommentHierarchyDTO copy = new CommentHierarchyDTO(source.getId(), source.getPostId(), source.getContent(),
+                source.getCreatedAt(), source.getModifiedDate(), source.getDepth(), source.getParentCommentId(),
+                source.getAuthorId(), source.getAuthorName(), source.getReplyCount(), source.getLikeCount());
+        applyPendingCounts(copy);
+        return copy;
+    }
+
+    // 게시물의 스레드 캐시 키 전체 (CounterService 에서도 사용)
+    public static List<String> threadCacheKeys(Long postId) {
+        List<String> keys = new ArrayList<>(CACHED_THREAD_PAGES);
+        for (int page = 0; page < CACHED_THREAD_PAGES; page++) {
+            keys.add(threadCacheKey(postId, page));
+        }
+        return keys;
+    }
+
+    private static String threadCacheKey(Long postId, int page) {
+        return postId + ":" + page;
+    }
+
+    // 커밋 전에 지우면 다른 요청이 변경 전 스레드 페이지를 다시 캐싱할 수 있으므로 커밋 후에 지움
+    private void evictThread(Long postId) {
+        TransactionUtils.afterCommit(() -> commentThreadCache.evictAll(threadCacheKeys(postId)));
+    }
+
+    // 루트 댓글 커서 페이징 (작성순, 전체 개수 조회 없음)
+    @Transactional(readOnly = true)
+    public CursorPage<CommentHierarchyDTO> getRootCommentsByCursor(Long postId, String cursor, int size) {
+        int pageSize = CursorUtils.normalizeSize(size);
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        List<CommentHierarchyDTO> comments;
+        if (cursor == null || cursor.isBlank()) {
+            comments = commentRepository.findRootCommentsDtoFirst(postId, limit);
+        } else {
+            CursorUtils.Cursor decoded = CursorUtils.decode(cursor);
+            comments = commentRepository.findRootCommentsDtoAfter(postId, decoded.createdDate(), decoded.id(), limit);
+        }
+        return toCursorPage(comments, pageSize);
     }
 
-    // getChildComment 수정 전 0206
-    // 특정 댓글의 모든 자식 댓글 조회 (페이징 없음)
-
-//    @Transactional(readOnly = true)
-//    public List<CommentHierarchyDTO> getAllChildComments(Long parentCommentId) {
-//        // 한 번의 쿼리로 모든 계층 구조를 조회
-//        List<Comment> allComments = commentRepository.findAllChildrenHierarchy(parentCommentId);
-//
-//        // 메모리에서 계층 구조 구성
-//        Map<Long, CommentHierarchyDTO> dtoMap = new HashMap<>();
-//        List<CommentHierarchyDTO> firstLevelComments = new ArrayList<>();
-//
-//        // 1단계: 모든 댓글을 DTO로 변환
-//        allComments.forEach(comment -> {
-//            CommentHierarchyDTO dto = convertToHierarchyDTO(comment);
-//            dtoMap.put(comment.getId(), dto);
-//
-//            if (comment.getParentComment().getId().equals(parentCommentId)) {
-//                firstLevelComments.add(dto);
-//            }
-//        });
-//
-//        // 2단계: 계층 구조 구성
-//        allComments.forEach(comment -> {
-//            if (!comment.getParentComment().getId().equals(parentCommentId)) {
-//                CommentHierarchyDTO parentDto = dtoMap.get(comment.getParentComment().getId());
-//                if (parentDto.getReplies() == null) {
-//                    parentDto.setReplies(new ArrayList<>());
-//                }
-//                parentDto.getReplies().add(dtoMap.get(comment.getId()));
-//            }
-//        });
-//
-//        return firstLevelComments;
-//    }
+    // 직계 대댓글 커서 페이징 (작성순, 전체 개수 조회 없음)
+    @Transactional(readOnly = true)
+    public CursorPage<CommentHierarchyDTO> getChildCommentsByCursor(Long parentCommentId, String cursor, int size) {
+        int pageSize = CursorUtils.normalizeSize(size);
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        List<CommentHierarchyDTO> comments;
+        if (cursor == null || cursor.isBlank()) {
+            comments = commentRepository.findChildCommentsDtoFirst(parentCommentId, limit);
+        } else {
+            CursorUtils.Cursor decoded = CursorUtils.decode(cursor);
+            comments = commentRepository.findChildCommentsDtoAfter(parentCommentId, decoded.createdDate(), decoded.id(), limit);
+        }
+        return toCursorPage(comments, pageSize);
+    }
 
+    private CursorPage<CommentHierarchyDTO> toCursorPage(List<CommentHierarchyDTO> comments, int pageSize) {
+        CursorPage<CommentHierarchyDTO> page = CursorPage.of(comments, pageSize,
+                comment -> CursorUtils.encode(comment.getCreatedAt(), comment.getId()));
+        page.getContent().forEach(this::applyPendingCounts);
+        return page;
+    }
+
+    // 여러 댓글을 IN 쿼리 한 번으로 조회 (대댓글 목록은 채우지 않음)
+    @Transactional(readOnly = true)
+    public MultiGetResponse<CommentHierarchyDTO> getCommentsByIds(List<Long> commentIds) {
+        List<Long> ids = MultiGetResponse.distinctIds(commentIds);
+        Map<Long, CommentHierarchyDTO> found = new HashMap<>();
+        for (CommentHierarchyDTO comment : commentRepository.findHierarchyByIds(ids)) {
+            applyPendingCounts(comment);
+            found.put(comment.getId(), comment);
+        }
+        return MultiGetResponse.of(commentIds, found);
+    }
+
+    // 아직 DB에 반영되지 않은 카운터 증감분을 더함
+    private void applyPendingCounts(CommentHierarchyDTO dto) {
+        dto.setReplyCount(dto.getReplyCount()
+                + counterService.getPending(CounterService.CounterType.COMMENT_REPLY, dto.getId()));
+        dto.setLikeCount(dto.getLikeCount()
+                + counterService.getPending(CounterService.CounterType.COMMENT_LIKE, dto.getId()));
+    }
+
+    // 특정 댓글의 모든 하위 댓글 조회 (경로 구간 스캔 한 번, 표시 순서대로)
     @Transactional(readOnly = true)
     public List<CommentHierarchyProjection> getAllChildComments(Long parentCommentId) {
         // DB에서 계층 구조를 가져옴
@@ -154,14 +323,14 @@ public class CommentService {
     public Page<CommentHierarchyDTO> getChildComments(Long parentCommentId, Pageable pageable) {
         Page<Comment> childComments = commentRepository.findChildCommentsWithUser(parentCommentId, pageable);
         List<CommentHierarchyDTO> dtos = childComments.stream()
-                .map(comment -> buildCommentHierarchy(comment, false, false))  // buildCommentHierarchy 메서드 사용
+                .map(this::buildCommentHierarchy)
                 .collect(Collectors.toList());
 
         return new PageImpl<>(dtos, pageable, childComments.getTotalElements());
     }
 
 
-    private CommentHierarchyDTO buildCommentHierarchy(Comment comment, boolean includeChildren, boolean isRoot) {
+    private CommentHierarchyDTO buildCommentHierarchy(Comment comment) {
         CommentHierarchyDTO dto = new CommentHierarchyDTO();
         dto.setId(comment.getId());
         dto.setPostId(comment.getPost().getId());
@@ -170,24 +339,6 @@ public class CommentService {
         dto.setAuthorName(comment.getUser().getUsername());
         dto.setCreatedAt(comment.getCreatedDate());
         dto.setDepth(comment.getDepth());
-
-        if (includeChildren && !comment.getChildrenComments().isEmpty()) {
-            List<CommentHierarchyDTO> replies;
-            if (isRoot) {
-                replies = comment.getChildrenComments().stream()
-                        .sorted(Comparator.comparing(Comment::getCreatedDate))
-                        .limit(2)
-                        .map(child -> buildCommentHierarchy(child, false, false))
-                        .collect(Collectors.toList());
-            } else {
-                replies = comment.getChildrenComments().stream()
-                        .sorted(Comparator.comparing(Comment::getCreatedDate))
-                        .map(child -> buildCommentHierarchy(child, false, false))
-                        .collect(Collectors.toList());
-            }
-            dto.setReplies(replies);
-        }
-
         return dto;
     }
 
@@ -214,51 +365,94 @@ public class CommentService {
 
 
 
+    // 좋아요: (comment_id, user_id) 유니크 인덱스에 INSERT 한 번 (중복이면 AlreadyLikedException)
     @Transactional
     public void likeComment(Long commentId, Long userId) {
-        Comment comment = commentRepository.findById(commentId)
+        Long commentOwnerId = commentRepository.findUserIdById(commentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Comment not found"));
-
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
-        if (commentRepository.existsByCommentIdAndUserId(commentId, userId)) {
-            throw new AlreadyLikedException("Already liked this comment");
-        }
+        User user = userRepository.getReferenceById(userId); // findById 대신 프록시 객체 사용
 
         CommentLike commentLike = new CommentLike();
-        commentLike.setComment(comment);
+        commentLike.setComment(commentRepository.getReferenceById(commentId));
         commentLike.setUser(user);
-        comment.getLikes().add(commentLike);
-        user.getLikedComments().add(commentLike);
+        try {
+            commentLikeRepository.save(commentLike);
+        } catch (DataIntegrityViolationException e) {
+            // 중복 좋아요만 변환 (댓글이 그 사이 삭제되어 외래 키가 깨진 경우 등은 그대로 던짐)
+            if (isCommentLikeDuplicate(e)) {
+                throw new AlreadyLikedException("Already liked this comment");
+            }
+            throw e;
+        }
+        counterService.increment(CounterService.CounterType.COMMENT_LIKE, commentId, 1);
+
+        notificationService.sendCommentLikeNotification(commentOwnerId, commentId, user.getUsername());
+    }
 
-        notificationService.sendCommentLikeNotification(comment.getUser().getId(), user.getUsername());
+    private static boolean isCommentLikeDuplicate(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.contains(COMMENT_LIKE_UNIQUE_INDEX);
     }
 
+    // 좋아요 취소: DELETE 한 번
     @Transactional
     public void unlikeComment(Long commentId, Long userId) {
-        Comment comment = commentRepository.findById(commentId)
-                .orElseThrow(() -> new ResourceNotFoundException("Comment not found"));
-
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        if (commentLikeRepository.deleteByCommentIdAndUserId(commentId, userId) == 0) {
+            throw new IllegalArgumentException("User has not liked this comment");
+        }
+        counterService.increment(CounterService.CounterType.COMMENT_LIKE, commentId, -1);
+    }
 
-        CommentLike commentLike = comment.getLikes().stream()
-                .filter(like -> like.getUser().getId().equals(userId))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("User has not liked this comment"));
 
-        comment.getLikes().remove(commentLike);
-        user.getLikedComments().remove(commentLike);
-        commentRepository.save(comment);
+    /**
+     * 유니크 인덱스(idx_comment_user) 도입 전에 쌓인 중복 댓글 좋아요를 지우고 인덱스를 만듦
+     * (중복 행이 있으면 ddl-auto 가 인덱스를 만들지 못하므로 직접 정리, 이미 인덱스가 있으면 조회 한 번으로 끝남)
+     * 지운 행이 있으면 댓글 좋아요 수가 어긋나 있으므로 카운터를 다시 계산합니다.
+     */
+    public void ensureCommentLikeUniqueIndex() {
+        if (commentLikeRepository.countUniqueIndex() > 0) {
+            return;
+        }
+        int deleted = commentLikeRepository.deleteDuplicateLikes();
+        commentLikeRepository.createUniqueIndex();
+        if (deleted > 0) {
+            counterService.recalculateAll();
+        }
+        log.info("Created comment like unique index: {} duplicates deleted", deleted);
     }
 
+    /**
+     * 경로가 없는 댓글(컬럼 추가 전 데이터, 더미 데이터 등)의 경로를 채움
+     * 부모 경로가 있어야 자식 경로를 만들 수 있으므로 깊이 0 부터 차례로, id 구간 단위로 나눠 실행합니다.
+     */
+    public void backfillPaths() {
+        int filled = 0;
+        // 채우는 도중 추가된 댓글도 다음 회차에서 채움 (새 댓글은 assignPath 가 조상 경로까지 만들므로 보통 한 번으로 끝남)
+        while (commentRepository.existsByPathIsNull()) {
+            Long maxId = commentRepository.findMaxId();
+            int filledThisPass = 0;
+            for (int depth = 0; depth <= MAX_DEPTH; depth++) {
+                for (long fromId = 0; fromId < maxId; fromId += PATH_BACKFILL_CHUNK_SIZE) {
+                    filledThisPass += commentRepository.fillPaths(depth, fromId, fromId + PATH_BACKFILL_CHUNK_SIZE);
+                }
+            }
+            if (filledThisPass == 0) {
+                log.warn("Some comment paths could not be filled (parent missing?)");
+                break;
+            }
+            filled += filledThisPass;
+        }
+        if (filled > 0) {
+            log.info("Filled paths of {} comments", filled);
+        }
+    }
 
     // 필요한 경우 직계 자식 댓글 수만 반환하는 메서드 추가
     public int getDirectRepliesCount(Long commentId) {
         Comment comment = commentRepository.findById(commentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Comment not found"));
-        return comment.getChildrenComments().size();
+        return (int) (comment.getReplyCount()
+                + counterService.getPending(CounterService.CounterType.COMMENT_REPLY, commentId));
     }
 
     private CommentDTO convertToDTO(Comment comment) {
@@ -0,0 +1,188 @@
+package com.example.sns_project.service;
+
+import com.example.sns_project.cache.TwoTierCache;
+import com.example.sns_project.dto.CommentThreadPage;
+import com.example.sns_project.dto.PostDetailDTO;
+import com.example.sns_project.repository.CommentRepository;
+import com.example.sns_project.repository.PostRepository;
+import com.example.sns_project.util.TransactionUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 게시물/댓글의 좋아요 수, 댓글 수를 모아서 DB에 반영하는 서비스 (write-behind)
+ * 요청 스레드는 id별 LongAdder 에 증감만 기록하고, 주기적으로 UPDATE ... SET x = x + ? 배치로 반영합니다.
+ * 인기 게시물 한 건에 좋아요가 몰려도 같은 행에 락 경합이 생기지 않습니다.
+ */
+@Log4j2
+@Service
+public class CounterService {
+
+    public enum CounterType {
+        POST_LIKE("UPDATE posts SET like_count = like_count + ? WHERE id = ?"),
+        POST_COMMENT("UPDATE posts SET comment_count = comment_count + ? WHERE id = ?"),
+        COMMENT_LIKE("UPDATE comments SET like_count = like_count + ? WHERE id = ?"),
+        COMMENT_REPLY("UPDATE comments SET reply_count = reply_count + ? WHERE id = ?");
+
+        private final String updateSql;
+
+        CounterType(String updateSql) {
+            this.updateSql = updateSql;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final TwoTierCache<PostDetailDTO> postDetailCache;
+    private final TwoTierCache<CommentThreadPage> commentThreadCache;
+
+    // 반영 대기 중인 증감값 (id -> delta)
+    // 증가와 flush 의 제거가 같은 항목 잠금(compute) 안에서 일어나므로, 반영한 id 의 항목을 지워도 동시에 들어온 증가를 잃지 않습니다.
+    private final Map<CounterType, ConcurrentHashMap<Long, LongAdder>> pending = new EnumMap<>(CounterType.class);
+
+    public CounterService(JdbcTemplate jdbcTemplate,
+                          TransactionTemplate transactionTemplate,
+                          PostRepository postRepository,
+                          CommentRepository commentRepository,
+                          TwoTierCache<PostDetailDTO> postDetailCache,
+                          TwoTierCache<CommentThreadPage> commentThreadCache) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
+        this.postDetailCache = postDetailCache;
+        this.commentThreadCache = commentThreadCache;
+        for (CounterType type : CounterType.values()) {
+            pending.put(type, new ConcurrentHashMap<>());
+        }
+    }
+
+    // 트랜잭션이 커밋된 뒤에 증감을 기록 (롤백된 좋아요/댓글은 반영하지 않음)
+    public void increment(CounterType type, Long id, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> add(type, id, delta));
+    }
+
+    private void add(CounterType type, Long id, long delta) {
+        pending.get(type).compute(id, (key, adder) -> {
+            LongAdder target = adder != null ? adder : new LongAdder();
+            target.add(delta);
+            return target;
+        });
+    }
+
+    // 아직 DB에 반영되지 않은 증감값 (조회 시 DB 값에 더해서 사용)
+    public long getPending(CounterType type, Long id) {
+        LongAdder adder = pending.get(type).get(id);
+        return adder != null ? adder.sum() : 0L;
+    }
+
+    @Scheduled(fixedDelayString = "${sns.counters.flush-interval-ms:1000}")
+    public void flush() {
+        for (CounterType type : CounterType.values()) {
+            flush(type);
+        }
+    }
+
+    private void flush(CounterType type) {
+        ConcurrentHashMap<Long, LongAdder> counters = pending.get(type);
+        List<Object[]> batchArgs = new ArrayList<>();
+        long[] drained = new long[1];
+        for (Long id : counters.keySet()) {
+            // 값을 읽고 항목을 지우는 것을 한 번에 처리 (한 번 증감된 id 가 계속 남지 않도록)
+            drained[0] = 0;
+            counters.computeIfPresent(id, (key, adder) -> {
+                drained[0] = adder.sum();
+                return null;
+            });
+            if (drained[0] != 0) {
+                batchArgs.add(new Object[]{drained[0], id});
+            }
+        }
+        if (batchArgs.isEmpty()) {
+            return;
+        }
+
+        try {
+            // 일부 행만 반영된 채 실패하면 다시 넣은 증감이 두 번 반영되므로 한 트랜잭션으로 묶음
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(type.updateSql, batchArgs));
+        } catch (Exception e) {
+            // 롤백되었으므로 실패한 증감은 전부 다음 주기에 다시 반영
+            log.error("Failed to flush {} counters ({} rows)", type, batchArgs.size(), e);
+            for (Object[] args : batchArgs) {
+                add(type, (Long) args[1], (Long) args[0]);
+            }
+            return;
+        }
+        evictCaches(type, batchArgs.stream().map(args -> (Long) args[1]).toList());
+    }
+
+    // 반영된 카운트를 이전 값으로 갖고 있는 캐시 제거
+    private void evictCaches(CounterType type, List<Long> ids) {
+        try {
+            if (type == CounterType.POST_LIKE || type == CounterType.POST_COMMENT) {
+                postDetailCache.evictAll(ids.stream().map(String::valueOf).toList());
+            } else {
+                // 댓글 카운터는 그 댓글이 속한 게시물의 스레드 캐시만 제거
+                commentThreadCache.evictAll(commentRepository.findPostIdsByIds(ids).stream()
+                        .flatMap(postId -> CommentService.threadCacheKeys(postId).stream())
+                        .toList());
+            }
+        } catch (Exception e) {
+            log.error("Failed to evict caches after flushing {} counters", type, e);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * 좋아요/댓글 테이블 기준으로 모든 카운터를 다시 계산
+     * 카운터 컬럼을 처음 추가했을 때나 더미 데이터를 생성한 뒤에 사용합니다.
+     * flush 는 트랜잭션 밖에서 먼저 반영합니다. (재계산이 롤백되어도 이미 꺼낸 증감을 잃지 않도록)
+     */
+    public void recalculateAll() {
+        flush();
+        transactionTemplate.executeWithoutResult(status -> {
+            int posts = postRepository.recalculateCounts();
+            int comments = commentRepository.recalculateLikeCounts() + commentRepository.recalculateReplyCounts();
+            log.info("Recalculated counters (posts: {}, comment updates: {})", posts, comments);
+        });
+    }
+
+    /**
+     * 카운터 컬럼이 막 추가된 상태인지 확인 (ddl-auto 가 DEFAULT 0 으로 추가하므로 기존 행은 모두 0)
+     * 좋아요/댓글/대댓글이 있는데 해당 카운터가 0 보다 큰 행이 하나도 없으면 아직 채우지 않은 것으로 봅니다.
+     * 한 번 채운 뒤에는 0 보다 큰 행을 바로 찾으므로 기동마다 짧은 조회 한 번으로 끝납니다.
+     */
+    public boolean needsBackfill() {
+        Boolean needed = jdbcTemplate.queryForObject("""
+                SELECT (EXISTS (SELECT 1 FROM post_likes)
+                            AND NOT EXISTS (SELECT 1 FROM posts WHERE like_count > 0))
+                    OR (EXISTS (SELECT 1 FROM comments)
+                            AND NOT EXISTS (SELECT 1 FROM posts WHERE comment_count > 0))
+                    OR (EXISTS (SELECT 1 FROM comment_likes)
+                            AND NOT EXISTS (SELECT 1 FROM comments WHERE like_count > 0))
+                    OR (EXISTS (SELECT 1 FROM comments WHERE parent_comment_id IS NOT NULL)
+                            AND NOT EXISTS (SELECT 1 FROM comments WHERE reply_count > 0))
+                """, Boolean.class);
+        return Boolean.TRUE.equals(needed);
+    }
+}
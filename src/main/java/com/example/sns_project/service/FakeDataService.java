@@ -41,6 +41,8 @@ public class FakeDataService {
     private final AuthService authService;
     private final NotificationRepository notificationRepository;
     private final NotificationService notificationService;
+    private final LikeFilter likeFilter;
+    private final FriendGraphIndex friendGraphIndex;
     private final BCryptPasswordEncoder passwordEncoder;
     private final Faker faker;
 
@@ -62,8 +64,9 @@ public class FakeDataService {
             RoleRepository roleRepository,
             AuthService authService,
             NotificationRepository notificationRepository,
-            NotificationService notificationService
-
+            NotificationService notificationService,
+            LikeFilter likeFilter,
+            FriendGraphIndex friendGraphIndex
     ) {
         this.userRepository = userRepository;
         this.postRepository = postRepository;
@@ -78,6 +81,8 @@ public class FakeDataService {
         this.authService = authService;
         this.notificationRepository = notificationRepository;
         this.notificationService = notificationService;
+        this.likeFilter = likeFilter;
+        this.friendGraphIndex = friendGraphIndex;
 
         this.passwordEncoder = new BCryptPasswordEncoder();
         this.faker = new Faker(Locale.KOREAN);
@@ -236,6 +241,8 @@ public class FakeDataService {
         if (!commentsToSave.isEmpty()) {
             commentRepository.saveAll(commentsToSave);
         }
+        entityManager.flush();
+        commentService.backfillPaths(); // 생성한 댓글의 경로 채우기
     }
 
     private Comment createCommentWithNotification(
@@ -368,11 +375,13 @@ public class FakeDataService {
                         postLike.setCreatedDate(randomLikeDate);
 
 
+                        likeFilter.addPostLike(post.getId(), user.getId());
                         entityManager.persist(postLike);
 
                         if (withNotifications) {
                             notificationService.sendPostLikeNotification(
                                     post.getUser().getId(),
+                                    post.getId(),
                                     user.getUsername()
                             );
                         }
@@ -446,6 +455,7 @@ public class FakeDataService {
                         if (withNotifications) {
                             notificationService.sendCommentLikeNotification(
                                     comment.getUser().getId(),
+                                    comment.getId(),
                                     user.getUsername()
                             );
                         }
@@ -496,10 +506,8 @@ public class FakeDataService {
 
                 if (!existingFriendships.contains(friendshipKey)) {
                     // 친구 관계 생성
-                    Friendship friendship = new Friendship();
-                    friendship.setUser1(user);
-                    friendship.setUser2(friend);
-                    entityManager.persist(friendship);
+                    entityManager.persist(Friendship.between(user, friend));
+                    friendGraphIndex.onFriendshipAdded(user.getId(), friend.getId());
 
                     // 친구 요청 처리
                     String forwardRequestKey = generateRequestKey(user.getId(), friend.getId());
@@ -0,0 +1,282 @@
+package com.example.sns_project.service;
+
+import com.example.sns_project.repository.FriendshipRepository;
+import com.example.sns_project.util.TransactionUtils;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 친구 관계 메모리 인덱스 (사용자 ID -> 정렬된 친구 ID long[])
+ * 친구 여부는 이진 탐색, 친구 목록은 배열 복사로 답하므로 friendships 테이블의 OR 조회가 요청마다 나가지 않습니다.
+ * 친구 ID 는 박싱하지 않은 long[] 로 두고, 바뀔 때는 그 사용자의 배열만 새로 만들어 교체합니다. (읽기는 잠금 없음)
+ *
+ * 시작 시(그리고 매일 rebuild-cron 에) friendships 를 스트리밍으로 한 번 읽어 새 인덱스를 만들고 교체합니다.
+ * 만드는 동안과 실패했을 때는 DB 로 조회하므로 결과가 틀리지는 않습니다.
+ * 친구 추가/삭제는 커밋 후 반영하고 Redis Pub/Sub 으로 다른 노드에도 알립니다. (메시지를 놓친 노드는 다음 재구성 때 맞춰짐)
+ */
+@Log4j2
+@Component
+public class FriendGraphIndex implements MessageListener {
+
+    public static final String CHANNEL = "friends:graph";
+
+    private static final int SCAN_FETCH_SIZE = 10_000;
+    private static final long[] EMPTY = new long[0];
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final JdbcTemplate jdbcTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final FriendshipRepository friendshipRepository;
+    private final boolean enabled;
+    private final AtomicBoolean rebuildRunning = new AtomicBoolean();
+
+    // 재구성 중 들어온 변경을 스캔이 끝난 뒤 새 인덱스에 순서대로 다시 적용하기 위한 기록 ({추가 여부, userId1, userId2})
+    private final Object changeLock = new Object();
+    private List<long[]> pendingChanges;
+
+    private volatile Map<Long, long[]> adjacency;  // null 이면 아직 준비되지 않음
+
+    public FriendGraphIndex(JdbcTemplate jdbcTemplate,
+                            StringRedisTemplate stringRedisTemplate,
+                            FriendshipRepository friendshipRepository,
+                            @Value("${sns.friends.graph.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.friendshipRepository = friendshipRepository;
+        this.enabled = enabled;
+    }
+
+    public boolean areFriends(Long userId1, Long userId2) {
+        Map<Long, long[]> current = adjacency;
+        if (current == null) {
+            return friendshipRepository.existsFriendship(userId1, userId2);
+        }
+        return Arrays.binarySearch(current.getOrDefault(userId1, EMPTY), userId2) >= 0;
+    }
+
+    // 친구 ID 목록 (오름차순)
+    public List<Long> getFriendIds(Long userId) {
+        Map<Long, long[]> current = adjacency;
+        if (current == null) {
+            return friendshipRepository.findFriendIdsByUserId(userId);
+        }
+        return toList(current.getOrDefault(userId, EMPTY));
+    }
+
+    // candidateIds 중 userId 의 친구인 ID
+    public List<Long> filterFriends(Long userId, Collection<Long> candidateIds) {
+        Map<Long, long[]> current = adjacency;
+        if (current == null) {
+            return friendshipRepository.findFriendIdsAmong(userId, candidateIds);
+        }
+        long[] friends = current.getOrDefault(userId, EMPTY);
+        List<Long> result = new ArrayList<>();
+        for (Long candidateId : candidateIds) {
+            if (Arrays.binarySearch(friends, candidateId) >= 0) {
+                result.add(candidateId);
+            }
+        }
+        return result;
+    }
+
+    public void onFriendshipAdded(Long userId1, Long userId2) {
+        publishAfterCommit(true, userId1, userId2);
+    }
+
+    public void onFriendshipRemoved(Long userId1, Long userId2) {
+        publishAfterCommit(false, userId1, userId2);
+    }
+
+    // 롤백된 변경이 인덱스에 남지 않도록 커밋 후 반영
+    private void publishAfterCommit(boolean added, Long userId1, Long userId2) {
+        if (!enabled) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> {
+            apply(added, userId1, userId2);
+            try {
+                stringRedisTemplate.convertAndSend(CHANNEL,
+                        nodeId + "|" + (added ? "+" : "-") + "|" + userId1 + "|" + userId2);
+            } catch (Exception e) {
+                log.error("Failed to publish friend graph update", e);
+            }
+        });
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|");
+        if (parts.length != 4 || nodeId.equals(parts[0])) {
+            return; // 내가 보낸 메시지는 이미 반영함
+        }
+        try {
+            apply("+".equals(parts[1]), Long.parseLong(parts[2]), Long.parseLong(parts[3]));
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed friend graph message");
+        }
+    }
+
+    private void apply(boolean added, long userId1, long userId2) {
+        synchronized (changeLock) {
+            if (pendingChanges != null) {
+                pendingChanges.add(new long[]{added ? 1 : 0, userId1, userId2});
+            }
+            Map<Long, long[]> current = adjacency;
+            if (current != null) {
+                apply(current, added, userId1, userId2);
+            }
+        }
+    }
+
+    private static void apply(Map<Long, long[]> target, boolean added, long userId1, long userId2) {
+        if (added) {
+            target.compute(userId1, (key, friends) -> insert(friends, userId2));
+            target.compute(userId2, (key, friends) -> insert(friends, userId1));
+        } else {
+            target.computeIfPresent(userId1, (key, friends) -> remove(friends, userId2));
+            target.computeIfPresent(userId2, (key, friends) -> remove(friends, userId1));
+        }
+    }
+
+    // 시작 직후 요청을 막지 않도록 별도 스레드에서 재구성 (끝날 때까지는 DB 로 조회)
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (!enabled) {
+            return;
+        }
+        Thread thread = new Thread(this::rebuild, "friend-graph-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // 놓친 Pub/Sub 메시지로 어긋난 노드를 맞추기 위해 주기적으로 새로 만듦
+    @Scheduled(cron = "${sns.friends.graph.rebuild-cron:0 30 5 * * *}")
+    public void rebuild() {
+        if (!enabled || !rebuildRunning.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long started = System.currentTimeMillis();
+            // 스캔 시작 전에 먼저 걸어 두어야 스캔 중 바뀐 관계가 새 인덱스에서 빠지지 않음
+            synchronized (changeLock) {
+                pendingChanges = new ArrayList<>();
+            }
+            Map<Long, long[]> next = scan();
+            synchronized (changeLock) {
+                for (long[] change : pendingChanges) {
+                    apply(next, change[0] == 1, change[1], change[2]);
+                }
+                adjacency = next;
+            }
+            log.info("Rebuilt friend graph index for {} users in {} ms", next.size(), System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            // 기존 인덱스가 있으면 계속 사용
+            log.error("Failed to rebuild friend graph index", e);
+        } finally {
+            synchronized (changeLock) {
+                pendingChanges = null;
+            }
+            rebuildRunning.set(false);
+        }
+    }
+
+    // 결과를 한 번에 메모리에 올리지 않도록 fetch size 를 지정해 스트리밍으로 읽고, 사용자별로 모은 뒤 정렬
+    private Map<Long, long[]> scan() {
+        Map<Long, LongBuffer> buffers = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("SELECT user1_id, user2_id FROM friendships",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(SCAN_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) rs -> {
+            long userId1 = rs.getLong(1);
+            long userId2 = rs.getLong(2);
+            buffers.computeIfAbsent(userId1, key -> new LongBuffer()).add(userId2);
+            buffers.computeIfAbsent(userId2, key -> new LongBuffer()).add(userId1);
+        });
+
+        Map<Long, long[]> next = new ConcurrentHashMap<>(Math.max(16, buffers.size() * 4 / 3));
+        buffers.forEach((userId, buffer) -> next.put(userId, buffer.toSortedDistinctArray()));
+        return next;
+    }
+
+    private static long[] insert(long[] friends, long friendId) {
+        if (friends == null) {
+            return new long[]{friendId};
+        }
+        int index = Arrays.binarySearch(friends, friendId);
+        if (index >= 0) {
+            return friends;
+        }
+        int position = -index - 1;
+        long[] updated = new long[friends.length + 1];
+        System.arraycopy(friends, 0, updated, 0, position);
+        updated[position] = friendId;
+        System.arraycopy(friends, position, updated, position + 1, friends.length - position);
+        return updated;
+    }
+
+    // 친구가 없어지면 항목을 지움 (null 반환)
+    private static long[] remove(long[] friends, long friendId) {
+        int index = Arrays.binarySearch(friends, friendId);
+        if (index < 0) {
+            return friends;
+        }
+        if (friends.length == 1) {
+            return null;
+        }
+        long[] updated = new long[friends.length - 1];
+        System.arraycopy(friends, 0, updated, 0, index);
+        System.arraycopy(friends, index + 1, updated, index, friends.length - index - 1);
+        return updated;
+    }
+
+    private static List<Long> toList(long[] values) {
+        List<Long> result = new ArrayList<>(values.length);
+        for (long value : values) {
+            result.add(value);
+        }
+        return result;
+    }
+
+    // 재구성용 long 가변 배열 (Long 박싱 없이 모음)
+    private static class LongBuffer {
+        private long[] values = new long[4];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toSortedDistinctArray() {
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            int distinct = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (i == 0 || sorted[i] != sorted[i - 1]) {
+                    sorted[distinct++] = sorted[i];
+                }
+            }
+            return distinct == sorted.length ? sorted : Arrays.copyOf(sorted, distinct);
+        }
+    }
+}
@@ -14,6 +14,8 @@ import com.example.sns_project.repository.FriendRequestRepository;
 import com.example.sns_project.repository.FriendshipRepository;
 import com.example.sns_project.repository.UserRepository;
 import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -22,13 +24,18 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
+@Log4j2
 @Service
 @AllArgsConstructor
 public class FriendService {
+    private static final long NORMALIZE_CHUNK_SIZE = 10_000;
+
     private final UserRepository userRepository;
     private final FriendRequestRepository friendRequestRepository;
     private final FriendshipRepository friendshipRepository;
     private final NotificationService notificationService;
+    private final TimelineService timelineService;
+    private final FriendGraphIndex friendGraphIndex;
 
     @Transactional
     public void sendFriendRequest(Long senderId, Long receiverId) {
@@ -75,16 +82,14 @@ public class FriendService {
             throw new InvalidRequestStateException("Request already " + friendRequest.getStatus().toString().toLowerCase());
         }
 
-        // 이미 친구 관계인지 확인
-        if (friendshipRepository.existsFriendship(friendRequest.getSender().getId(), friendRequest.getReceiver().getId())) {
+        // 이미 친구 관계인지는 유니크 인덱스가 확인 (양쪽이 동시에 수락해도 한 행만 저장됨)
+        try {
+            friendshipRepository.save(Friendship.between(friendRequest.getSender(), friendRequest.getReceiver()));
+        } catch (DataIntegrityViolationException e) {
             throw new DuplicateRequestException("Friendship already exists");
         }
-
-        Friendship friendship = new Friendship();
-        friendship.setUser1(friendRequest.getSender());
-        friendship.setUser2(friendRequest.getReceiver());
-
-        friendshipRepository.save(friendship);
+        friendGraphIndex.onFriendshipAdded(friendRequest.getSender().getId(), friendRequest.getReceiver().getId());
+        timelineService.onFriendshipChanged(friendRequest.getSender().getId(), friendRequest.getReceiver().getId());
         friendRequest.setStatus(RequestStatus.ACCEPTED);
         friendRequestRepository.save(friendRequest);
         notificationService.sendFriendAddedNotification(friendRequest.getReceiver().getId(), friendRequest.getSender().getId());
@@ -111,7 +116,12 @@ public class FriendService {
     public List<UserDTO> getFriends(Long userId) {
         userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        return friendshipRepository.findFriendsByUserId(userId);
+        // 친구 ID 는 메모리 인덱스에서, 사용자 정보는 기본키 IN 조회 한 번으로 읽음
+        List<Long> friendIds = friendGraphIndex.getFriendIds(userId);
+        if (friendIds.isEmpty()) {
+            return List.of();
+        }
+        return userRepository.findUserDTOsByIds(friendIds);
     }
 
     public List<FriendRequestDTO> getFriendRequests(Long userId) {
@@ -132,7 +142,7 @@ public class FriendService {
 
     @Transactional
     public void removeFriend(Long userId, Long friendId) {
-        // 친구 관계가 실제로 존재하는지 확인
+        // 친구 관계가 실제로 존재하는지 확인 (쓰기는 메모리 인덱스가 아니라 DB 기준으로 판단)
         Friendship friendship = friendshipRepository.findByUserIds(userId, friendId)
                 .orElseThrow(() -> new ResourceNotFoundException("Friendship not found"));
 
@@ -142,6 +152,8 @@ public class FriendService {
         }
 
         friendshipRepository.delete(friendship);
+        friendGraphIndex.onFriendshipRemoved(friendship.getUser1().getId(), friendship.getUser2().getId());
+        timelineService.onFriendshipChanged(friendship.getUser1().getId(), friendship.getUser2().getId());
     }
 
     public RequestStatus getFriendRequestStatus(Long requestId, Long userId) {
@@ -165,4 +177,26 @@ public class FriendService {
         // 공통 친구 수 기반으로 추천 (최대 10명)
         return userRepository.findRecommendedUsers(userId, PageRequest.of(0, 10));
     }
-}
\ No newline at end of file
+
+    /**
+     * 정렬 순서 도입 전에 (큰 ID, 작은 ID) 로 저장된 친구 관계를 정리하고 유니크 인덱스를 만듦
+     * 중복 행을 먼저 지워야 뒤집은 행이 기존 행과 겹치지 않으므로 중복 삭제 -> id 구간별 뒤집기 -> 인덱스 생성 순서로 실행합니다.
+     * 이미 정리되어 있으면 조회 두 번으로 끝납니다.
+     */
+    public void normalizeFriendships() {
+        boolean hasUniqueIndex = friendshipRepository.countUniqueIndex() > 0;
+        if (hasUniqueIndex && friendshipRepository.countMisordered() == 0) {
+            return;
+        }
+        int deleted = friendshipRepository.deleteDuplicatePairs();
+        Long maxId = friendshipRepository.findMaxId();
+        int reordered = 0;
+        for (long fromId = 0; maxId != null && fromId < maxId; fromId += NORMALIZE_CHUNK_SIZE) {
+            reordered += friendshipRepository.normalizeOrder(fromId, fromId + NORMALIZE_CHUNK_SIZE);
+        }
+        if (!hasUniqueIndex) {
+            friendshipRepository.createUniqueIndex();
+        }
+        log.info("Normalized friendships: {} duplicates deleted, {} rows reordered", deleted, reordered);
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.sns_project.service;
+
+import com.example.sns_project.repository.CommentRepository;
+import com.example.sns_project.repository.PostLikeRepository;
+import com.example.sns_project.util.TransactionUtils;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 실시간 인기 게시물(최근 N시간 활동 기준)을 메모리에서 계산하는 엔진
+ * 게시물마다 고정 크기의 시간 버킷(기본 1시간 x 24개)에 좋아요/댓글 수를 쌓고,
+ * 윈도우를 벗어난 버킷은 다음 기록 시점에 재사용(회전)합니다.
+ * 조회 시에는 크기 limit 의 최소 힙으로 상위 K개만 뽑으므로 DB 집계 쿼리가 필요 없습니다.
+ */
+@Log4j2
+@Component
+public class HotPostEngine {
+
+    // 한 번에 조회할 수 있는 최대 게시물 수 (limit 은 요청 파라미터이므로 그대로 쓰지 않음)
+    public static final int MAX_LIMIT = 100;
+
+    private final Clock clock;
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final long likeWeight;
+    private final long commentWeight;
+    private final PostLikeRepository postLikeRepository;
+    private final CommentRepository commentRepository;
+
+    private final ConcurrentHashMap<Long, PostActivity> activities = new ConcurrentHashMap<>();
+
+    @Autowired
+    public HotPostEngine(@Value("${sns.hot-posts.bucket-minutes:60}") long bucketMinutes,
+                         @Value("${sns.hot-posts.bucket-count:24}") int bucketCount,
+                         @Value("${sns.hot-posts.like-weight:2}") long likeWeight,
+                         @Value("${sns.hot-posts.comment-weight:1}") long commentWeight,
+                         PostLikeRepository postLikeRepository,
+                         CommentRepository commentRepository) {
+        this(Clock.systemDefaultZone(), bucketMinutes, bucketCount, likeWeight, commentWeight,
+                postLikeRepository, commentRepository);
+    }
+
+    // 테스트에서 시각을 직접 움직이기 위한 생성자
+    HotPostEngine(Clock clock, long bucketMinutes, int bucketCount, long likeWeight, long commentWeight,
+                  PostLikeRepository postLikeRepository, CommentRepository commentRepository) {
+        this.clock = clock;
+        this.bucketMillis = bucketMinutes * 60_000L;
+        this.bucketCount = bucketCount;
+        this.likeWeight = likeWeight;
+        this.commentWeight = commentWeight;
+        this.postLikeRepository = postLikeRepository;
+        this.commentRepository = commentRepository;
+    }
+
+    // 좋아요 +1 / -1 (취소 시에는 좋아요가 눌렸던 시각의 버킷에서 차감)
+    public void recordLike(Long postId, LocalDateTime likedAt, int delta) {
+        TransactionUtils.afterCommit(() -> record(postId, likedAt, delta, 0));
+    }
+
+    // 댓글 +1 / -1
+    public void recordComment(Long postId, LocalDateTime commentedAt, int delta) {
+        TransactionUtils.afterCommit(() -> record(postId, commentedAt, 0, delta));
+    }
+
+    // 삭제된 게시물이 순위 자리를 차지하지 않도록 커밋 후 제거
+    public void removePost(Long postId) {
+        TransactionUtils.afterCommit(() -> {
+            PostActivity activity = activities.remove(postId);
+            if (activity != null) {
+                synchronized (activity) {
+                    activity.removed = true;
+                }
+            }
+        });
+    }
+
+    /**
+     * 점수(좋아요 x likeWeight + 댓글 x commentWeight) 상위 limit 개의 게시물 ID를 높은 순으로 반환
+     * 윈도우 안에 활동이 없는 게시물은 이 시점에 정리합니다. (limit 은 MAX_LIMIT 까지)
+     */
+    public List<Long> getHotPostIds(int limit) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        limit = Math.min(limit, MAX_LIMIT);
+
+        long currentEpoch = currentEpoch();
+        PriorityQueue<HotPostScore> heap = new PriorityQueue<>(Comparator.comparingLong(HotPostScore::score));
+
+        for (Map.Entry<Long, PostActivity> entry : activities.entrySet()) {
+            PostActivity activity = entry.getValue();
+            long score;
+            synchronized (activity) {
+                score = activity.score(currentEpoch, bucketCount, likeWeight, commentWeight);
+                if (score <= 0 && activity.isExpired(currentEpoch, bucketCount)) {
+                    activity.removed = true;
+                    activities.remove(entry.getKey(), activity);
+                    continue;
+                }
+            }
+
+            if (score <= 0) {
+                continue;
+            }
+            if (heap.size() < limit) {
+                heap.offer(new HotPostScore(entry.getKey(), score));
+            } else if (heap.peek().score() < score) {
+                heap.poll();
+                heap.offer(new HotPostScore(entry.getKey(), score));
+            }
+        }
+
+        List<Long> postIds = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            postIds.add(heap.poll().postId());
+        }
+        Collections.reverse(postIds);
+        return postIds;
+    }
+
+    // 재시작 직후에도 순위가 비어 있지 않도록 윈도우 구간의 활동만 DB에서 읽어 채움
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            LocalDateTime since = LocalDateTime.now(clock).minus(Duration.ofMillis(bucketMillis * bucketCount));
+            for (Object[] row : postLikeRepository.findLikeActivitySince(since)) {
+                record((Long) row[0], (LocalDateTime) row[1], 1, 0);
+            }
+            for (Object[] row : commentRepository.findCommentActivitySince(since)) {
+                record((Long) row[0], (LocalDateTime) row[1], 0, 1);
+            }
+            log.info("Warmed up hot post engine with {} posts", activities.size());
+        } catch (Exception e) {
+            log.error("Failed to warm up hot post engine", e);
+        }
+    }
+
+    private void record(Long postId, LocalDateTime at, int likeDelta, int commentDelta) {
+        long epoch = toEpoch(at);
+        long currentEpoch = currentEpoch();
+        if (epoch <= currentEpoch - bucketCount || epoch > currentEpoch) {
+            return; // 윈도우 밖의 활동은 무시
+        }
+
+        while (true) {
+            PostActivity activity = activities.computeIfAbsent(postId, id -> new PostActivity(bucketCount));
+            synchronized (activity) {
+                // 정리 중에 제거된 객체라면 새로 만든 객체에 다시 기록
+                if (activity.removed) {
+                    continue;
+                }
+                activity.add(epoch, bucketCount, likeDelta, commentDelta);
+                return;
+            }
+        }
+    }
+
+    private long currentEpoch() {
+        return clock.millis() / bucketMillis;
+    }
+
+    private long toEpoch(LocalDateTime at) {
+        LocalDateTime time = at != null ? at : LocalDateTime.now(clock);
+        return time.atZone(clock.getZone()).toInstant().toEpochMilli() / bucketMillis;
+    }
+
+    private record HotPostScore(Long postId, long score) {
+    }
+
+    // 게시물 하나의 버킷 링 (epochs[i] 는 해당 칸이 담고 있는 버킷 번호)
+    private static final class PostActivity {
+        private final long[] epochs;
+        private final int[] likes;
+        private final int[] comments;
+        private boolean removed;
+
+        private PostActivity(int bucketCount) {
+            this.epochs = new long[bucketCount];
+            this.likes = new int[bucketCount];
+            this.comments = new int[bucketCount];
+            Arrays.fill(epochs, Long.MIN_VALUE);
+        }
+
+        private void add(long epoch, int bucketCount, int likeDelta, int commentDelta) {
+            int slot = (int) Math.floorMod(epoch, (long) bucketCount);
+            if (epochs[slot] != epoch) {
+                // 윈도우를 벗어난 버킷을 현재 버킷으로 회전
+                epochs[slot] = epoch;
+                likes[slot] = 0;
+                comments[slot] = 0;
+            }
+            likes[slot] += likeDelta;
+            comments[slot] += commentDelta;
+        }
+
+        private long score(long currentEpoch, int bucketCount, long likeWeight, long commentWeight) {
+            long likeSum = 0;
+            long commentSum = 0;
+            for (int i = 0; i < bucketCount; i++) {
+                if (epochs[i] > currentEpoch - bucketCount) {
+                    likeSum += likes[i];
+                    commentSum += comments[i];
+                }
+            }
+            return Math.max(0, likeSum) * likeWeight + Math.max(0, commentSum) * commentWeight;
+        }
+
+        private boolean isExpired(long currentEpoch, int bucketCount) {
+            for (long epoch : epochs) {
+                if (epoch > currentEpoch - bucketCount) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.sns_project.service;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * "이 사용자가 이 게시물에 좋아요를 눌렀는가" 를 DB 조회 없이 먼저 걸러내는 Bloom 필터
+ * false 면 확실히 누르지 않은 것이므로 존재 여부 쿼리를 생략하고, true 일 때만 DB 로 확인합니다.
+ * 대부분의 상세 조회는 좋아요를 누르지 않은 사용자가 하므로 existsByPostIdAndUserId 쿼리가 대부분 사라집니다.
+ * (댓글 좋아요는 이미 존재 여부를 조회하지 않고 유니크 인덱스로 막으므로 대상이 아님)
+ *
+ * 시작 시(그리고 매일 rebuild-cron 에) post_likes 를 스트리밍으로 한 번 읽어 새 비트 배열을 만들고 교체합니다.
+ * 만드는 동안과 실패했을 때는 항상 true 를 반환하므로 결과가 틀리지는 않습니다.
+ * 좋아요는 즉시 추가하고 Redis Pub/Sub 으로 다른 노드에도 알립니다. (메시지를 놓친 노드는 다음 재구성까지 틀릴 수 있지만
+ * 좋아요 저장은 유니크 인덱스가 막으므로 중복 좋아요는 생기지 않음)
+ * 재구성 스캔이 보지 못한 좋아요(스캔 시작 전에 추가했지만 스캔 뒤에 커밋된 것, write-behind 모드에서는 반영 주기만큼 늦음)도
+ * 빠지지 않도록 최근 replay-window 동안의 추가를 기억해 두었다가 교체 직전에 새 배열에 다시 넣습니다.
+ * Bloom 필터는 비트를 지울 수 없으므로 좋아요 취소는 반영하지 않고, 남은 비트는 다음 재구성 때 정리됩니다. (오탐만 늘어남)
+ */
+@Log4j2
+@Component
+public class LikeFilter implements MessageListener {
+
+    public static final String CHANNEL = "likes:filter";
+
+    private static final int SCAN_FETCH_SIZE = 10_000;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final JdbcTemplate jdbcTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final boolean enabled;
+    private final int bitCount;
+    private final int hashCount;
+    private final long replayWindowMs;
+    private final AtomicBoolean rebuildRunning = new AtomicBoolean();
+    // 최근 replayWindowMs 동안 추가된 좋아요 (오래된 것부터)
+    private final Queue<RecentAdd> recentAdds = new ConcurrentLinkedQueue<>();
+
+    private volatile AtomicLongArray bits;        // null 이면 아직 준비되지 않음
+    private volatile AtomicLongArray rebuilding;  // 재구성 중에 들어온 좋아요도 새 배열에 넣기 위함
+
+    public LikeFilter(JdbcTemplate jdbcTemplate,
+                      StringRedisTemplate stringRedisTemplate,
+                      @Value("${sns.likes.filter.enabled:true}") boolean enabled,
+                      @Value("${sns.likes.filter.expected-insertions:10000000}") long expectedInsertions,
+                      @Value("${sns.likes.filter.false-positive-rate:0.01}") double falsePositiveRate,
+                      @Value("${sns.likes.filter.replay-window-ms:10000}") long replayWindowMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.enabled = enabled;
+        this.replayWindowMs = replayWindowMs;
+        // m = -n ln p / (ln 2)^2, k = m / n ln 2
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitCount = (int) Math.min(Math.max(optimalBits, Long.SIZE), (long) Integer.MAX_VALUE - Long.SIZE);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    public boolean mightContainPostLike(Long postId, Long userId) {
+        AtomicLongArray current = bits;
+        if (current == null) {
+            return true;
+        }
+        long h1 = hash(postId, userId);
+        long h2 = secondHash(h1);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = index(h1 + i * h2);
+            if ((current.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 좋아요 저장 전에 호출 (커밋 전에 추가해야 커밋 직후 조회가 false 로 걸러지지 않음, 롤백되면 오탐 하나가 남을 뿐)
+    public void addPostLike(Long postId, Long userId) {
+        if (!enabled) {
+            return;
+        }
+        add(postId, userId);
+        try {
+            stringRedisTemplate.convertAndSend(CHANNEL, nodeId + "|" + postId + "|" + userId);
+        } catch (Exception e) {
+            log.error("Failed to publish like filter update", e);
+        }
+    }
+
+    private void add(long postId, long userId) {
+        long h1 = hash(postId, userId);
+        long now = System.currentTimeMillis();
+        recentAdds.add(new RecentAdd(h1, now));
+        pruneRecentAdds(now);
+
+        // rebuild 는 bits 교체 후 rebuilding 을 비우므로 이 순서로 읽어야 교체 직전의 추가가 빠지지 않음
+        AtomicLongArray next = rebuilding;
+        AtomicLongArray current = bits;
+        long h2 = secondHash(h1);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = index(h1 + i * h2);
+            if (current != null) {
+                setBit(current, bit);
+            }
+            if (next != null) {
+                setBit(next, bit);
+            }
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|");
+        if (parts.length != 3 || nodeId.equals(parts[0])) {
+            return; // 내가 보낸 메시지는 이미 반영함
+        }
+        try {
+            add(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed like filter message");
+        }
+    }
+
+    // 시작 직후 요청을 막지 않도록 별도 스레드에서 재구성 (끝날 때까지는 항상 DB 로 확인)
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (!enabled) {
+            return;
+        }
+        Thread thread = new Thread(this::rebuild, "like-filter-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // 취소된 좋아요의 비트를 정리하기 위해 주기적으로 새로 만듦
+    @Scheduled(cron = "${sns.likes.filter.rebuild-cron:0 0 5 * * *}")
+    public void rebuild() {
+        if (!enabled || !rebuildRunning.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long started = System.currentTimeMillis();
+            AtomicLongArray next = new AtomicLongArray((bitCount + Long.SIZE - 1) / Long.SIZE);
+            // 스캔 시작 전에 먼저 걸어 두어야 스캔 중 추가된 좋아요가 새 배열에서 빠지지 않음
+            rebuilding = next;
+            long likes = scan(next);
+            // 스캔 직전에 추가되었지만 스캔 이후에 커밋되어 스캔이 보지 못한 좋아요를 다시 넣음
+            replayRecentAdds(next);
+            bits = next;
+            log.info("Rebuilt like filter with {} post likes in {} ms ({} bits, {} hashes)",
+                    likes, System.currentTimeMillis() - started, bitCount, hashCount);
+        } catch (Exception e) {
+            // 기존 배열이 있으면 계속 사용 (취소된 좋아요의 오탐만 남음)
+            log.error("Failed to rebuild like filter", e);
+        } finally {
+            rebuilding = null;
+            rebuildRunning.set(false);
+        }
+    }
+
+    // 결과를 한 번에 메모리에 올리지 않도록 fetch size 를 지정해 스트리밍으로 읽음
+    private long scan(AtomicLongArray target) {
+        long[] count = {0};
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("SELECT post_id, user_id FROM post_likes",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(SCAN_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) rs -> {
+            long h1 = hash(rs.getLong(1), rs.getLong(2));
+            long h2 = secondHash(h1);
+            for (int i = 0; i < hashCount; i++) {
+                setBit(target, index(h1 + i * h2));
+            }
+            count[0]++;
+        });
+        return count[0];
+    }
+
+    private void replayRecentAdds(AtomicLongArray target) {
+        pruneRecentAdds(System.currentTimeMillis());
+        for (RecentAdd recent : recentAdds) {
+            long h2 = secondHash(recent.hash());
+            for (int i = 0; i < hashCount; i++) {
+                setBit(target, index(recent.hash() + i * h2));
+            }
+        }
+    }
+
+    private void pruneRecentAdds(long now) {
+        RecentAdd oldest;
+        while ((oldest = recentAdds.peek()) != null && oldest.addedAt() < now - replayWindowMs) {
+            recentAdds.remove(oldest);
+        }
+    }
+
+    private int index(long hash) {
+        return (int) ((hash & Long.MAX_VALUE) % bitCount);
+    }
+
+    private static void setBit(AtomicLongArray array, int bit) {
+        int word = bit >>> 6;
+        long mask = 1L << bit;
+        long value;
+        do {
+            value = array.get(word);
+            if ((value & mask) != 0) {
+                return;
+            }
+        } while (!array.compareAndSet(word, value, value | mask));
+    }
+
+    private static long hash(long postId, long userId) {
+        return mix(mix(postId) ^ userId);
+    }
+
+    // 두 해시로 k 개의 위치를 만드는 double hashing (h1 + i * h2)
+    private static long secondHash(long h1) {
+        return mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+    }
+
+    // MurmurHash3 fmix64
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private record RecentAdd(long hash, long addedAt) {
+    }
+}
@@ -2,65 +2,100 @@ package com.example.sns_project.service;
 
 // 알림 관련 비즈니스 로직을 처리하는 서비스
 
+import com.example.sns_project.dto.CursorPage;
 import com.example.sns_project.dto.NotificationDTO;
 import com.example.sns_project.exception.ResourceNotFoundException; // 사용자 정의 예외 추가
 import com.example.sns_project.exception.UnauthorizedException;
 import com.example.sns_project.model.Notification;
+import com.example.sns_project.enums.NotificationTargetType;
 import com.example.sns_project.enums.NotificationType; // NotificationType 열거형 추가
-import com.example.sns_project.model.User;
+import com.example.sns_project.notification.NotificationCoalescer;
+import com.example.sns_project.notification.NotificationInbox;
+import com.example.sns_project.notification.NotificationWriter;
+import com.example.sns_project.notification.PendingNotification;
+import com.example.sns_project.notification.RecentActors;
 import com.example.sns_project.repository.NotificationRepository;
 import com.example.sns_project.repository.UserRepository;
+import com.example.sns_project.util.CursorUtils;
+import com.example.sns_project.util.TransactionUtils;
+import com.example.sns_project.websocket.NotificationPusher;
 import lombok.AllArgsConstructor;
-import org.springframework.data.domain.Page;
+import lombok.extern.log4j.Log4j2;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
+@Log4j2
 @Service
 @AllArgsConstructor
 public class NotificationService {
 
-    private static final int BATCH_SIZE = 5000;
+    private static final long EVENT_CHUNK_SIZE = 50_000;
     private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
-    private final List<Notification> notificationBuffer = new ArrayList<>();
-
-    // 배치 처리를 위한 버퍼 플러시 메서드
-    private synchronized void flushNotificationBuffer() {
-        if (!notificationBuffer.isEmpty()) {
-            notificationRepository.saveAll(notificationBuffer);
-            notificationBuffer.clear();
-        }
-    }
+    private final NotificationWriter notificationWriter;
+    private final NotificationInbox notificationInbox;
+    private final NotificationPusher notificationPusher;
+    private final NotificationCoalescer notificationCoalescer;
 
 
     // 특정 사용자의 모든 알림을 조회
     public List<NotificationDTO> getUserNotifications(Long userId) {
         List<Notification> notifications = notificationRepository.findByUserId(userId);
         return notifications.stream()
-                .map(notification -> new NotificationDTO(
-                        notification.getId(),
-                        notification.getMessage(),
-                        notification.getUser().getId(),
-                        notification.isRead()))
+                .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
+    // 최근 알림 조회 (Redis 최근 목록에서 읽고, 목록 크기보다 많이 요청하면 DB 조회)
+    public List<NotificationDTO> getRecentNotifications(Long userId, int size) {
+        int pageSize = CursorUtils.normalizeSize(size);
+        List<NotificationDTO> recent = notificationInbox.getRecent(userId, pageSize);
+        if (recent != null) {
+            return recent;
+        }
+        return getUserNotificationsByCursor(userId, null, pageSize).getContent();
+    }
+
+    // 알림 커서 페이징 (최신순, id 기준)
+    // 첫 페이지는 Redis 최근 목록으로 충분하면 DB 를 거치지 않음
+    public CursorPage<NotificationDTO> getUserNotificationsByCursor(Long userId, String cursor, int size) {
+        int pageSize = CursorUtils.normalizeSize(size);
+        if (cursor == null || cursor.isBlank()) {
+            List<NotificationDTO> recent = notificationInbox.getRecent(userId, pageSize + 1);
+            if (recent != null) {
+                return CursorPage.of(recent, pageSize, notification -> CursorUtils.encodeId(notification.getId()));
+            }
+        }
+
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        List<Notification> notifications = (cursor == null || cursor.isBlank())
+                ? notificationRepository.findByUserIdOrderByIdDesc(userId, limit)
+                : notificationRepository.findByUserIdAndIdLessThanOrderByIdDesc(userId, CursorUtils.decodeId(cursor), limit);
+
+        CursorPage<Notification> page = CursorPage.of(notifications, pageSize,
+                notification -> CursorUtils.encodeId(notification.getId()));
+        List<NotificationDTO> content = page.getContent().stream()
+                .map(this::convertToDTO)
+                .toList();
+        return new CursorPage<>(content, page.getNextCursor(), page.isHasNext());
+    }
+
     // 모든 알림 읽음 처리
     @Transactional
     public void markAllAsRead(Long userId) {
-        List<Notification> unreadNotifications = notificationRepository.findByUserIdAndIsRead(userId, false);
-        unreadNotifications.forEach(notification -> notification.setRead(true));
-        notificationRepository.saveAll(unreadNotifications);
+        notificationRepository.markAllAsReadByUserId(userId);
+        notificationInbox.markAllRead(userId);
     }
 
-    // 읽지 않은 알림 개수 조회
+    // 읽지 않은 알림 개수 조회 (Redis 카운터)
     public Long getUnreadNotificationCount(Long userId) {
-        return notificationRepository.countByUserIdAndIsRead(userId, false);
+        return notificationInbox.getUnreadCount(userId);
     }
 
     // 특정 알림을 읽음으로 마킹 (권한 검증 추가)
@@ -73,8 +108,12 @@ public class NotificationService {
             throw new UnauthorizedException("Not authorized to access this notification");
         }
 
+        if (notification.isRead()) {
+            return;
+        }
         notification.setRead(true);
         notificationRepository.save(notification);
+        notificationInbox.decrementUnread(userId);
     }
 
     // 특정 알림 삭제 (권한 검증 추가)
@@ -88,73 +127,62 @@ public class NotificationService {
         }
 
         notificationRepository.delete(notification);
+        if (notification.isRead()) {
+            notificationInbox.evictInbox(userId);
+        } else {
+            notificationInbox.decrementUnread(userId);
+        }
     }
 
     // 특정 사용자의 읽지 않은 알림 조회
     public List<NotificationDTO> getUnreadNotifications(Long userId) {
         List<Notification> notifications = notificationRepository.findByUserIdAndIsRead(userId, false);
         return notifications.stream()
-                .map(notification -> new NotificationDTO(
-                        notification.getId(),
-                        notification.getMessage(),
-                        notification.getUser().getId(),
-                        notification.isRead()))
+                .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
-    // 기본 알림 전송 메서드 (배치 처리)
+    // 기본 알림 전송 메서드
+    // 요청 스레드에서는 큐에 넣기만 하고 저장은 NotificationWriter 가 배치로 처리
+    // 좋아요/댓글 트랜잭션이 롤백되면 알림도 보내지 않도록 커밋 후에 넣음
     public void sendNotification(Long userId, String message, NotificationType notificationType) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
-        Notification notification = new Notification();
-        notification.setUser(user);
-        notification.setMessage(message);
-        notification.setNotificationType(notificationType);
-
-        synchronized (notificationBuffer) {
-            notificationBuffer.add(notification);
-            if (notificationBuffer.size() >= BATCH_SIZE) {
-                flushNotificationBuffer();
-            }
-        }
+        PendingNotification notification = PendingNotification.of(userId, message, notificationType);
+        TransactionUtils.afterCommit(() -> notificationWriter.enqueue(notification));
+    }
+
+    // 같은 (수신자, 유형, 대상) 알림을 일정 시간 모아 한 건으로 저장
+    public void sendCoalescedNotification(Long userId, NotificationType notificationType,
+                                          NotificationTargetType targetType, Long targetId,
+                                          String actor, String action) {
+        TransactionUtils.afterCommit(() ->
+                notificationCoalescer.add(userId, notificationType, targetType, targetId, actor, action));
     }
 
-    // 남은 알림들 강제 저장
+    // 큐에 남은 알림을 바로 저장하도록 요청
     public void flushRemainingNotifications() {
-        flushNotificationBuffer();
+        notificationWriter.requestFlush();
     }
 
 
     // 전체 사용자에게 이벤트 알림 전송
-    @Transactional
+    // 사용자 id 구간마다 INSERT ... SELECT 한 번씩 실행 (엔티티 생성 없음, 구간별로 커밋되어 락이 짧음)
     public void sendEventNotificationToAll(String eventMessage) {
-        int page = 0;
-        int size = 1000; // 한 번에 조회할 사용자 수
-        Page<User> userPage;
-
-        do {
-            userPage = userRepository.findAll(PageRequest.of(page, size));
-
-            for (User user : userPage.getContent()) {
-                Notification notification = new Notification();
-                notification.setUser(user);
-                notification.setMessage(eventMessage);
-                notification.setNotificationType(NotificationType.EVENT);
-
-                synchronized(notificationBuffer) {
-                    notificationBuffer.add(notification);
-                    if (notificationBuffer.size() >= BATCH_SIZE) {
-                        flushNotificationBuffer();
-                    }
-                }
-            }
+        Long maxUserId = userRepository.findMaxId();
+        if (maxUserId == null) {
+            return;
+        }
 
-            page++;
-        } while (userPage.hasNext());
+        LocalDateTime createdDate = LocalDateTime.now();
+        int inserted = 0;
+        for (long fromId = 0; fromId < maxUserId; fromId += EVENT_CHUNK_SIZE) {
+            inserted += notificationRepository.insertForUserRange(eventMessage, NotificationType.EVENT.name(),
+                    createdDate, fromId, fromId + EVENT_CHUNK_SIZE);
+        }
+        log.info("Sent event notification to {} users", inserted);
 
-        // 남은 알림들 처리
-        flushNotificationBuffer();
+        // 모든 사용자의 읽지 않은 수/최근 목록이 바뀌었으므로 Redis 값을 한 번에 무효화하고, 접속자에게는 한 번만 방송
+        notificationInbox.invalidateAll();
+        notificationPusher.broadcast(eventMessage, NotificationType.EVENT);
     }
 
     // 이하 다른 알림 전송 메서드들은 동일하게 유지
@@ -163,9 +191,10 @@ public class NotificationService {
         sendNotification(postOwnerId, message, NotificationType.COMMENT);
     }
 
-    public void sendPostLikeNotification(Long postOwnerId, String username) {
-        String message = username + "님이 당신의 포스트에 좋아요를 눌렀습니다.";
-        sendNotification(postOwnerId, message, NotificationType.LIKE);
+    // 좋아요 알림은 같은 게시물/댓글 단위로 묶어서 저장 ("alice님 외 12명이 ...")
+    public void sendPostLikeNotification(Long postOwnerId, Long postId, String username) {
+        sendCoalescedNotification(postOwnerId, NotificationType.LIKE, NotificationTargetType.POST, postId,
+                username, "당신의 포스트에 좋아요를 눌렀습니다.");
     }
 
     public void sendCommentNotification(Long postOwnerId, String username) {
@@ -173,9 +202,9 @@ public class NotificationService {
         sendNotification(postOwnerId, message, NotificationType.COMMENT);
     }
 
-    public void sendCommentLikeNotification(Long commentOwnerId, String username) {
-        String message = username + "님이 당신의 댓글에 좋아요를 눌렀습니다.";
-        sendNotification(commentOwnerId, message, NotificationType.LIKE);
+    public void sendCommentLikeNotification(Long commentOwnerId, Long commentId, String username) {
+        sendCoalescedNotification(commentOwnerId, NotificationType.LIKE, NotificationTargetType.COMMENT, commentId,
+                username, "당신의 댓글에 좋아요를 눌렀습니다.");
     }
 
     public void sendFriendRequestNotification(Long senderId, Long receiverId) {
@@ -198,4 +227,19 @@ public class NotificationService {
         String message = "서버 점검 안내: " + maintenanceTime;
         sendEventNotificationToAll(message);
     }
-}
\ No newline at end of file
+
+    private NotificationDTO convertToDTO(Notification notification) {
+        NotificationDTO dto = new NotificationDTO(
+                notification.getId(),
+                notification.getMessage(),
+                notification.getUser().getId(),
+                notification.isRead());
+        dto.setNotificationType(notification.getNotificationType() != null
+                ? notification.getNotificationType().name() : null);
+        dto.setTargetType(notification.getTargetType() != null ? notification.getTargetType().name() : null);
+        dto.setTargetId(notification.getTargetId());
+        dto.setActorCount(notification.getActorCount() != null ? notification.getActorCount() : 1);
+        dto.setRecentActors(RecentActors.decode(notification.getRecentActors()));
+        return dto;
+    }
+}
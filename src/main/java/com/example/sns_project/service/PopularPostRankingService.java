@@ -0,0 +1,367 @@
+package com.example.sns_project.service;
+
+import com.example.sns_project.repository.CommentRepository;
+import com.example.sns_project.repository.PostLikeRepository;
+import com.example.sns_project.repository.PostRepository;
+import com.example.sns_project.util.TransactionUtils;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * 인기 게시물 랭킹을 Redis Sorted Set 으로 관리하는 서비스
+ * 좋아요/댓글이 생길 때마다 점수를 증감시키므로 자정 전체 집계 없이 항상 최신 순위를 유지합니다.
+ *
+ * 재구성 중(REBUILDING_KEY 가 있는 동안)에는 점수가 바뀐 게시물 ID 를 DIRTY_KEY 에 모아 두고,
+ * 스냅샷을 채운 뒤 그 게시물만 DB 에서 다시 집계해 점수를 덮어씁니다. (증감을 더하지 않으므로 두 번 반영되지 않음)
+ * DIRTY_KEY 가 빈 것을 확인하는 것과 교체를 한 스크립트에서 처리하므로 재구성 중 들어온 변경이 교체로 사라지지 않습니다.
+ */
+@Log4j2
+@Service
+public class PopularPostRankingService {
+
+    private static final String RANKING_KEY = "popular_posts:ranking";
+    private static final String REBUILD_KEY = RANKING_KEY + ":rebuild";
+    private static final String DIRTY_KEY = RANKING_KEY + ":dirty";
+    private static final String REBUILDING_KEY = RANKING_KEY + ":rebuilding";
+    private static final int REBUILD_CHUNK_SIZE = 10000;
+    // 재구성 중 노드가 죽어도 표시가 남지 않도록 둔 만료 시간 (단계마다 연장하고, 이미 사라졌으면 재구성을 중단)
+    private static final Duration REBUILD_LEASE = Duration.ofMinutes(10);
+    // 바뀐 게시물 다시 집계를 이만큼 반복해도 계속 새로 바뀌면 남은 게시물은 현재 랭킹 점수를 그대로 가져감
+    private static final int MAX_CATCH_UP_ROUNDS = 10;
+
+    private static final List<String> UPDATE_KEYS = List.of(RANKING_KEY, DIRTY_KEY, REBUILDING_KEY);
+
+    // KEYS: [랭킹, 바뀐 게시물, 재구성 표시], ARGV: [게시물 ID, 증감]
+    private static final RedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('ZINCRBY', KEYS[1], ARGV[2], ARGV[1])
+            if redis.call('EXISTS', KEYS[3]) == 1 then
+              redis.call('SADD', KEYS[2], ARGV[1])
+            end
+            return 1
+            """, Long.class);
+
+    // KEYS: [랭킹, 바뀐 게시물, 재구성 표시], ARGV: [게시물 ID]
+    private static final RedisScript<Long> ADD_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('ZADD', KEYS[1], 'NX', 0, ARGV[1])
+            if redis.call('EXISTS', KEYS[3]) == 1 then
+              redis.call('SADD', KEYS[2], ARGV[1])
+            end
+            return 1
+            """, Long.class);
+
+    // KEYS: [랭킹, 바뀐 게시물, 재구성 표시], ARGV: [게시물 ID]
+    private static final RedisScript<Long> REMOVE_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('ZREM', KEYS[1], ARGV[1])
+            if redis.call('EXISTS', KEYS[3]) == 1 then
+              redis.call('SADD', KEYS[2], ARGV[1])
+            end
+            return 1
+            """, Long.class);
+
+    // KEYS: [재구성 표시, 스냅샷, 바뀐 게시물], ARGV: [토큰, 만료(ms)]
+    // 다른 노드가 재구성 중이면 0
+    private static final RedisScript<Long> BEGIN_REBUILD_SCRIPT = new DefaultRedisScript<>("""
+            if not redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then
+              return 0
+            end
+            redis.call('DEL', KEYS[2], KEYS[3])
+            return 1
+            """, Long.class);
+
+    // KEYS: [재구성 표시], ARGV: [토큰, 만료(ms)]
+    // 내 재구성 표시가 남아 있으면 연장하고 1, 만료되었거나 다른 노드 것이면 0
+    private static final RedisScript<Long> EXTEND_REBUILD_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+              return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            end
+            return 0
+            """, Long.class);
+
+    // KEYS: [바뀐 게시물] - 모인 게시물 ID 를 꺼내고 비움
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> TAKE_DIRTY_SCRIPT = new DefaultRedisScript<>("""
+            local ids = redis.call('SMEMBERS', KEYS[1])
+            redis.call('DEL', KEYS[1])
+            return ids
+            """, List.class);
+
+    // KEYS: [랭킹, 스냅샷, 바뀐 게시물, 재구성 표시], ARGV: [토큰, 강제 여부]
+    // 바뀐 게시물이 남아 있으면 0 (다시 집계 후 재시도), 강제면 남은 게시물은 현재 랭킹 점수를 옮긴 뒤 교체
+    // 교체하면 1, 재구성 표시를 잃었으면 -1
+    private static final RedisScript<Long> FINISH_REBUILD_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[4]) ~= ARGV[1] then
+              return -1
+            end
+            if redis.call('SCARD', KEYS[3]) > 0 then
+              if ARGV[2] ~= '1' then
+                return 0
+              end
+              for _, id in ipairs(redis.call('SMEMBERS', KEYS[3])) do
+                local score = redis.call('ZSCORE', KEYS[1], id)
+                if score then
+                  redis.call('ZADD', KEYS[2], score, id)
+                else
+                  redis.call('ZREM', KEYS[2], id)
+                end
+              end
+            end
+            if redis.call('EXISTS', KEYS[2]) == 1 then
+              redis.call('RENAME', KEYS[2], KEYS[1])
+            else
+              redis.call('DEL', KEYS[1])
+            end
+            redis.call('DEL', KEYS[3], KEYS[4])
+            return 1
+            """, Long.class);
+
+    // 기존 정렬(좋아요 수 DESC, 댓글 수 DESC)을 점수 하나로 표현하기 위한 가중치
+    // 댓글 수가 LIKE_WEIGHT 를 넘지 않는 한 좋아요 수가 항상 우선합니다.
+    private static final double LIKE_WEIGHT = 1_000_000d;
+    private static final double COMMENT_WEIGHT = 1d;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final PostRepository postRepository;
+    private final PostLikeRepository postLikeRepository;
+    private final CommentRepository commentRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public PopularPostRankingService(StringRedisTemplate stringRedisTemplate,
+                                     PostRepository postRepository,
+                                     PostLikeRepository postLikeRepository,
+                                     CommentRepository commentRepository,
+                                     PlatformTransactionManager transactionManager) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.postRepository = postRepository;
+        this.postLikeRepository = postLikeRepository;
+        this.commentRepository = commentRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    // 새 게시물은 점수 0으로 랭킹에 등록
+    public void addPost(Long postId) {
+        TransactionUtils.afterCommit(() -> execute(() ->
+                stringRedisTemplate.execute(ADD_SCRIPT, UPDATE_KEYS, postId.toString())));
+    }
+
+    public void removePost(Long postId) {
+        TransactionUtils.afterCommit(() -> execute(() ->
+                stringRedisTemplate.execute(REMOVE_SCRIPT, UPDATE_KEYS, postId.toString())));
+    }
+
+    // 좋아요 +1 / -1
+    public void incrementLikes(Long postId, long delta) {
+        incrementScore(postId, delta * LIKE_WEIGHT);
+    }
+
+    // 댓글 +n / -n (대댓글 포함)
+    public void incrementComments(Long postId, long delta) {
+        incrementScore(postId, delta * COMMENT_WEIGHT);
+    }
+
+    private void incrementScore(Long postId, double delta) {
+        TransactionUtils.afterCommit(() -> execute(() ->
+                stringRedisTemplate.execute(INCREMENT_SCRIPT, UPDATE_KEYS, postId.toString(), String.valueOf(delta))));
+    }
+
+    // 순위 구간 조회 (ZREVRANGE 한 번)
+    public List<Long> getRankedPostIds(long offset, int size) {
+        Set<String> members = stringRedisTemplate.opsForZSet()
+                .reverseRange(RANKING_KEY, offset, offset + size - 1);
+        if (members == null || members.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return members.stream().map(Long::valueOf).toList();
+    }
+
+    public long getRankedPostCount() {
+        Long count = stringRedisTemplate.opsForZSet().zCard(RANKING_KEY);
+        return count != null ? count : 0L;
+    }
+
+    // 애플리케이션 시작 시 랭킹이 비어 있으면 한 번만 만들어 둠
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeRanking() {
+        try {
+            if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(RANKING_KEY))) {
+                return;
+            }
+            rebuildRanking();
+        } catch (Exception e) {
+            log.error("Failed to initialize popular post ranking", e);
+        }
+    }
+
+    /**
+     * DB 기준으로 랭킹 전체를 다시 만듭니다.
+     * 임시 키에 채운 뒤 교체하므로 재구성 중에도 기존 랭킹으로 조회가 가능합니다.
+     * 게시물/좋아요/댓글 집계가 같은 스냅샷을 보도록 읽기 전용 트랜잭션 하나에서 읽습니다.
+     * (initializeRanking 에서 자기 호출로 불려도 적용되도록 @Transactional 대신 TransactionTemplate 사용)
+     *
+     * 스냅샷 전에 표시를 걸므로 표시 이후에 반영된 변경은 모두 바뀐 게시물로 모입니다.
+     * 스냅샷에 이미 들어간 변경이 함께 모여도 그 게시물은 다시 집계한 값으로 덮어쓰므로 두 번 세지 않습니다.
+     */
+    public void rebuildRanking() {
+        String token = UUID.randomUUID().toString();
+        Long started = stringRedisTemplate.execute(BEGIN_REBUILD_SCRIPT,
+                List.of(REBUILDING_KEY, REBUILD_KEY, DIRTY_KEY), token, String.valueOf(REBUILD_LEASE.toMillis()));
+        if (started == null || started == 0) {
+            log.info("Popular post ranking is already being rebuilt");
+            return;
+        }
+        try {
+            log.info("Rebuilding popular post ranking");
+            Map<Long, Double> scores = readOnlyTransaction.execute(status -> loadScores(token));
+            extendLease(token);
+            writeSnapshot(scores);
+
+            int caughtUp = 0;
+            for (int round = 1; ; round++) {
+                extendLease(token);
+                caughtUp += catchUp(token);
+                boolean force = round >= MAX_CATCH_UP_ROUNDS;
+                Long finished = stringRedisTemplate.execute(FINISH_REBUILD_SCRIPT,
+                        List.of(RANKING_KEY, REBUILD_KEY, DIRTY_KEY, REBUILDING_KEY), token, force ? "1" : "0");
+                if (finished == null || finished < 0) {
+                    throw new IllegalStateException("Lost popular post ranking rebuild lease");
+                }
+                if (finished == 1) {
+                    log.info("Rebuilt popular post ranking with {} posts ({} re-read in {} rounds)",
+                            scores.size(), caughtUp, round);
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            // 기존 랭킹은 그대로 두고, 아직 내 표시이면 다음 재구성을 막지 않도록 지움
+            if (isLeaseHolder(token)) {
+                stringRedisTemplate.delete(List.of(REBUILDING_KEY, REBUILD_KEY, DIRTY_KEY));
+            }
+            throw e;
+        }
+    }
+
+    private Map<Long, Double> loadScores(String token) {
+        Map<Long, Double> scores = new HashMap<>();
+
+        int page = 0;
+        List<Long> postIds;
+        do {
+            postIds = postRepository.findPostIdsByPage(PageRequest.of(page++, REBUILD_CHUNK_SIZE, Sort.by("id")));
+            postIds.forEach(id -> scores.put(id, 0d));
+            extendLease(token);
+        } while (postIds.size() == REBUILD_CHUNK_SIZE);
+
+        for (Object[] row : postLikeRepository.countLikesGroupByPost()) {
+            scores.merge((Long) row[0], ((Number) row[1]).doubleValue() * LIKE_WEIGHT, Double::sum);
+        }
+        extendLease(token);
+        for (Object[] row : commentRepository.countCommentsGroupByPost()) {
+            scores.merge((Long) row[0], ((Number) row[1]).doubleValue() * COMMENT_WEIGHT, Double::sum);
+        }
+        return scores;
+    }
+
+    private void writeSnapshot(Map<Long, Double> scores) {
+        Set<ZSetOperations.TypedTuple<String>> chunk = new HashSet<>();
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            chunk.add(new DefaultTypedTuple<>(entry.getKey().toString(), entry.getValue()));
+            if (chunk.size() >= REBUILD_CHUNK_SIZE) {
+                stringRedisTemplate.opsForZSet().add(REBUILD_KEY, chunk);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            stringRedisTemplate.opsForZSet().add(REBUILD_KEY, chunk);
+        }
+    }
+
+    // 지금까지 모인 바뀐 게시물을 꺼내 DB 에서 다시 집계한 점수로 스냅샷을 덮어씀 (꺼낸 뒤의 변경은 다음 회차에 모임)
+    private int catchUp(String token) {
+        List<Long> dirtyIds = takeDirtyIds();
+        for (int from = 0; from < dirtyIds.size(); from += REBUILD_CHUNK_SIZE) {
+            List<Long> ids = dirtyIds.subList(from, Math.min(from + REBUILD_CHUNK_SIZE, dirtyIds.size()));
+            Map<Long, Double> scores = readOnlyTransaction.execute(status -> loadScores(ids));
+
+            Set<ZSetOperations.TypedTuple<String>> updated = new HashSet<>();
+            List<String> deleted = new ArrayList<>();
+            for (Long id : ids) {
+                Double score = scores.get(id);
+                if (score != null) {
+                    updated.add(new DefaultTypedTuple<>(id.toString(), score));
+                } else {
+                    deleted.add(id.toString());
+                }
+            }
+            if (!updated.isEmpty()) {
+                stringRedisTemplate.opsForZSet().add(REBUILD_KEY, updated);
+            }
+            if (!deleted.isEmpty()) {
+                stringRedisTemplate.opsForZSet().remove(REBUILD_KEY, deleted.toArray());
+            }
+            extendLease(token);
+        }
+        return dirtyIds.size();
+    }
+
+    // 없는(삭제된) 게시물은 결과에서 빠짐
+    private Map<Long, Double> loadScores(List<Long> postIds) {
+        Map<Long, Double> scores = new HashMap<>();
+        postRepository.findExistingIds(postIds).forEach(id -> scores.put(id, 0d));
+        for (Object[] row : postLikeRepository.countLikesByPostIds(postIds)) {
+            scores.computeIfPresent((Long) row[0], (id, score) -> score + ((Number) row[1]).doubleValue() * LIKE_WEIGHT);
+        }
+        for (Object[] row : commentRepository.countCommentsByPostIds(postIds)) {
+            scores.computeIfPresent((Long) row[0], (id, score) -> score + ((Number) row[1]).doubleValue() * COMMENT_WEIGHT);
+        }
+        return scores;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> takeDirtyIds() {
+        List<Object> members = stringRedisTemplate.execute(TAKE_DIRTY_SCRIPT, List.of(DIRTY_KEY));
+        if (members == null) {
+            return List.of();
+        }
+        return members.stream().map(member -> Long.valueOf(member.toString())).toList();
+    }
+
+    // 오래 걸리는 재구성에서 표시가 만료되면 이후 변경이 모이지 않으므로, 연장하지 못하면 교체하지 않고 중단
+    private void extendLease(String token) {
+        Long extended = stringRedisTemplate.execute(EXTEND_REBUILD_SCRIPT,
+                List.of(REBUILDING_KEY), token, String.valueOf(REBUILD_LEASE.toMillis()));
+        if (extended == null || extended == 0) {
+            throw new IllegalStateException("Lost popular post ranking rebuild lease");
+        }
+    }
+
+    private boolean isLeaseHolder(String token) {
+        try {
+            return token.equals(stringRedisTemplate.opsForValue().get(REBUILDING_KEY));
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    // 랭킹 갱신 실패가 좋아요/댓글 요청 자체를 실패시키지 않도록 로그만 남김
+    private void execute(Runnable command) {
+        try {
+            command.run();
+        } catch (Exception e) {
+            log.error("Failed to update popular post ranking", e);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.example.sns_project.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 게시물 좋아요/취소 write-behind 버퍼 (sns.likes.write-behind.enabled 로 켬)
+ * 요청 스레드는 게시물별 맵에 사용자의 마지막 의도(좋아요 true / 취소 false)만 기록하고 바로 응답합니다.
+ * 주기적으로 게시물마다 기존 좋아요를 한 번 조회한 뒤 여러 행 INSERT IGNORE 와 DELETE 한 번씩으로 반영하므로
+ * 좋아요가 몰려도 DB 왕복 수는 요청 수가 아니라 (게시물 수 x 주기) 에 비례합니다.
+ *
+ * 같은 사용자가 주기 안에 여러 번 누르면 마지막 의도만 반영되고, 이미 반영된 상태와 같으면 아무것도 하지 않습니다. (멱등)
+ * 카운터/랭킹/알림은 실제로 추가·삭제된 행 기준으로 반영 시점에 처리합니다.
+ * 반영 전 조회에는 {@link #getPendingIntent} 와 {@link #getPendingDelta} 를 더해서 사용합니다.
+ * 증감 추정치는 의도마다 기록 시점의 기존 상태(최근 반영한 상태, 없으면 {@link LikeFilter})와 다른 것만 셉니다.
+ * 반영 전에 프로세스가 죽으면 그 주기의 좋아요는 유실됩니다.
+ */
+@Log4j2
+@Service
+public class PostLikeBuffer {
+
+    private static final int MAX_USERS_PER_STATEMENT = 1000;
+    private static final long MAX_TRACKED_STATES = 100_000;
+    private static final Duration FLUSHED_STATE_TTL = Duration.ofMinutes(10);
+    private static final Duration EXISTING_POST_TTL = Duration.ofMinutes(1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PopularPostRankingService popularPostRankingService;
+    private final HotPostEngine hotPostEngine;
+    private final CounterService counterService;
+    private final NotificationService notificationService;
+    private final LikeFilter likeFilter;
+    private final boolean enabled;
+
+    // postId -> (userId -> 의도), 안쪽 맵은 바깥 맵의 compute 안에서만 변경
+    private final ConcurrentHashMap<Long, ConcurrentHashMap<Long, Intent>> intents = new ConcurrentHashMap<>();
+    // 최근 반영한 좋아요 상태 (취소한 좋아요는 필터에서 지울 수 없으므로 다시 누를 때의 기존 상태를 여기서 확인)
+    private final Cache<PostUser, Boolean> flushedStates = Caffeine.newBuilder()
+            .maximumSize(MAX_TRACKED_STATES)
+            .expireAfterWrite(FLUSHED_STATE_TTL)
+            .build();
+    // 존재를 확인한 게시물 (삭제되어도 잠시 남지만 반영 시점에 다시 확인하므로 저장되지 않음)
+    private final Cache<Long, Boolean> existingPosts = Caffeine.newBuilder()
+            .maximumSize(MAX_TRACKED_STATES)
+            .expireAfterWrite(EXISTING_POST_TTL)
+            .build();
+
+    public PostLikeBuffer(JdbcTemplate jdbcTemplate,
+                          PopularPostRankingService popularPostRankingService,
+                          HotPostEngine hotPostEngine,
+                          CounterService counterService,
+                          NotificationService notificationService,
+                          LikeFilter likeFilter,
+                          @Value("${sns.likes.write-behind.enabled:false}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.popularPostRankingService = popularPostRankingService;
+        this.hotPostEngine = hotPostEngine;
+        this.counterService = counterService;
+        this.notificationService = notificationService;
+        this.likeFilter = likeFilter;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // 필터에 추가하기 전에 기존 상태를 읽어야 하므로 필터 추가도 여기서 함
+    public void like(Long postId, Long userId) {
+        record(postId, userId, true);
+        likeFilter.addPostLike(postId, userId);
+    }
+
+    public void unlike(Long postId, Long userId) {
+        record(postId, userId, false);
+    }
+
+    private void record(Long postId, Long userId, boolean liked) {
+        intents.compute(postId, (key, users) -> {
+            if (users == null) {
+                users = new ConcurrentHashMap<>();
+            }
+            Intent previous = users.get(userId);
+            users.put(userId, new Intent(liked, previous != null ? previous.before() : currentState(postId, userId)));
+            return users;
+        });
+    }
+
+    // 반영된 상태 추정 (최근 반영한 상태 -> 필터 순, 필터 오탐이면 좋아요한 것으로 봄)
+    private boolean currentState(Long postId, Long userId) {
+        Boolean flushed = flushedStates.getIfPresent(new PostUser(postId, userId));
+        return flushed != null ? flushed : likeFilter.mightContainPostLike(postId, userId);
+    }
+
+    /**
+     * 게시물이 있는지 기본 키로 확인 (있는 게시물만 잠시 기억)
+     * write-behind 모드에서는 저장 전에 응답하므로 없는 게시물에 대한 좋아요를 요청 시점에 거르기 위해 사용합니다.
+     */
+    public boolean postExists(Long postId) {
+        if (existingPosts.getIfPresent(postId) != null) {
+            return true;
+        }
+        boolean exists = !jdbcTemplate.queryForList("SELECT 1 FROM posts WHERE id = ?", Integer.class, postId).isEmpty();
+        if (exists) {
+            existingPosts.put(postId, Boolean.TRUE);
+        }
+        return exists;
+    }
+
+    // 아직 반영되지 않은 마지막 의도 (없으면 null)
+    public Boolean getPendingIntent(Long postId, Long userId) {
+        Map<Long, Intent> users = intents.get(postId);
+        Intent intent = users != null ? users.get(userId) : null;
+        return intent != null ? intent.liked() : null;
+    }
+
+    // 아직 반영되지 않은 좋아요 증감 추정치 (기존 상태와 다른 의도만 셈, 필터 오탐만큼 어긋날 수 있음)
+    public long getPendingDelta(Long postId) {
+        Map<Long, Intent> users = intents.get(postId);
+        if (users == null) {
+            return 0L;
+        }
+        long delta = 0;
+        for (Intent intent : users.values()) {
+            if (intent.liked() != intent.before()) {
+                delta += intent.liked() ? 1 : -1;
+            }
+        }
+        return delta;
+    }
+
+    @Scheduled(fixedDelayString = "${sns.likes.write-behind.flush-interval-ms:200}")
+    public void flush() {
+        for (Long postId : intents.keySet()) {
+            Map<Long, Intent> users = intents.remove(postId);
+            if (users == null || users.isEmpty()) {
+                continue;
+            }
+            try {
+                flush(postId, users);
+            } catch (Exception e) {
+                // 그 사이 새로 들어온 의도가 우선이므로 없는 사용자만 되돌려 놓고 다음 주기에 다시 반영
+                log.error("Failed to flush {} like intents for post {}", users.size(), postId, e);
+                intents.compute(postId, (key, current) -> {
+                    if (current == null) {
+                        current = new ConcurrentHashMap<>();
+                    }
+                    for (Map.Entry<Long, Intent> entry : users.entrySet()) {
+                        current.putIfAbsent(entry.getKey(), entry.getValue());
+                    }
+                    return current;
+                });
+            }
+        }
+    }
+
+    private void flush(Long postId, Map<Long, Intent> users) {
+        List<Long> ownerIds = jdbcTemplate.queryForList("SELECT user_id FROM posts WHERE id = ?", Long.class, postId);
+        if (ownerIds.isEmpty()) {
+            return; // 삭제된 게시물
+        }
+
+        List<Long> userIds = new ArrayList<>(users.keySet());
+        for (int from = 0; from < userIds.size(); from += MAX_USERS_PER_STATEMENT) {
+            List<Long> chunk = userIds.subList(from, Math.min(from + MAX_USERS_PER_STATEMENT, userIds.size()));
+
+            // 이미 반영된 상태 (userId -> 좋아요 시각)
+            Map<Long, LocalDateTime> existing = new HashMap<>();
+            jdbcTemplate.query("SELECT user_id, created_date FROM post_likes WHERE post_id = ? AND user_id IN ("
+                            + placeholders(chunk.size()) + ")",
+                    rs -> {
+                        Timestamp createdDate = rs.getTimestamp(2);
+                        existing.put(rs.getLong(1), createdDate != null ? createdDate.toLocalDateTime() : null);
+                    },
+                    withPostId(postId, chunk));
+
+            List<Long> toInsert = new ArrayList<>();
+            List<Long> toDelete = new ArrayList<>();
+            for (Long userId : chunk) {
+                boolean liked = users.get(userId).liked();
+                if (liked && !existing.containsKey(userId)) {
+                    toInsert.add(userId);
+                } else if (!liked && existing.containsKey(userId)) {
+                    toDelete.add(userId);
+                }
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            int inserted = insert(postId, toInsert, now);
+            int deleted = delete(postId, toDelete);
+            for (Long userId : chunk) {
+                flushedStates.put(new PostUser(postId, userId), users.get(userId).liked());
+            }
+
+            long delta = inserted - deleted;
+            if (delta != 0) {
+                popularPostRankingService.incrementLikes(postId, delta);
+                counterService.increment(CounterService.CounterType.POST_LIKE, postId, delta);
+            }
+            if (inserted > 0) {
+                hotPostEngine.recordLike(postId, now, inserted);
+                // 동시에 다른 경로로 추가되어 무시된 행이 있을 수 있지만 알림은 요청한 사용자 기준으로 보냄
+                notifyLikes(ownerIds.get(0), postId, toInsert);
+            }
+            for (Long userId : toDelete) {
+                LocalDateTime likedAt = existing.get(userId);
+                hotPostEngine.recordLike(postId, likedAt != null ? likedAt : now, -1);
+            }
+        }
+    }
+
+    // 여러 행 INSERT IGNORE 한 번 (유니크 인덱스 idx_post_user 에 걸리는 중복은 무시)
+    private int insert(Long postId, List<Long> userIds, LocalDateTime now) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        StringJoiner values = new StringJoiner(", ");
+        List<Object> args = new ArrayList<>(userIds.size() * 3);
+        Timestamp createdDate = Timestamp.valueOf(now);
+        for (Long userId : userIds) {
+            values.add("(?, ?, ?)");
+            args.add(postId);
+            args.add(userId);
+            args.add(createdDate);
+        }
+        return jdbcTemplate.update("INSERT IGNORE INTO post_likes (post_id, user_id, created_date) VALUES " + values,
+                args.toArray());
+    }
+
+    private int delete(Long postId, List<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update("DELETE FROM post_likes WHERE post_id = ? AND user_id IN ("
+                + placeholders(userIds.size()) + ")", withPostId(postId, userIds));
+    }
+
+    private void notifyLikes(Long ownerId, Long postId, List<Long> userIds) {
+        jdbcTemplate.query("SELECT username FROM users WHERE id IN (" + placeholders(userIds.size()) + ")",
+                rs -> {
+                    notificationService.sendPostLikeNotification(ownerId, postId, rs.getString(1));
+                },
+                userIds.toArray());
+    }
+
+    private String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private Object[] withPostId(Long postId, List<Long> userIds) {
+        Object[] args = new Object[userIds.size() + 1];
+        args[0] = postId;
+        for (int i = 0; i < userIds.size(); i++) {
+            args[i + 1] = userIds.get(i);
+        }
+        return args;
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    // 사용자의 마지막 의도와 첫 의도를 기록할 때의 기존 상태
+    private record Intent(boolean liked, boolean before) {
+    }
+
+    private record PostUser(Long postId, Long userId) {
+    }
+}
@@ -1,8 +1,12 @@
 package com.example.sns_project.service;
 
+import com.example.sns_project.cache.TwoTierCache;
 import com.example.sns_project.dto.CommentDTO;
+import com.example.sns_project.dto.CursorPage;
+import com.example.sns_project.dto.MultiGetResponse;
 import com.example.sns_project.dto.PostDTO;
 import com.example.sns_project.dto.PostDetailDTO;
+import com.example.sns_project.dto.PostSummaryDTO;
 import com.example.sns_project.dto.UserDTO;
 import com.example.sns_project.enums.NotificationType;
 import com.example.sns_project.exception.AlreadyLikedException;
@@ -12,26 +16,27 @@ import com.example.sns_project.repository.CommentRepository;
 import com.example.sns_project.repository.PostLikeRepository;
 import com.example.sns_project.repository.PostRepository;
 import com.example.sns_project.repository.UserRepository;
+import com.example.sns_project.util.CursorUtils;
+import com.example.sns_project.util.TransactionUtils;
 import com.github.javafaker.Faker;
 import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
-import java.util.Set;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @AllArgsConstructor
@@ -39,6 +44,8 @@ import java.util.stream.Collectors;
 @Log4j2
 public class PostService {
 
+    private static final int EXPORT_CHUNK_SIZE = 1000;  // 내보내기 시 좋아요 여부를 한 번에 확인하고 응답에 쓰는 단위
+
     private final PostRepository postRepository;
     private final UserService userService;
     private final UserRepository userRepository;
@@ -46,38 +53,20 @@ public class PostService {
     private final CommentService commentService;
     private final NotificationService notificationService;
     private final PostLikeRepository postLikeRepository;
-    private final RedisTemplate<String, Object> redisTemplate;
-
-    private static final String POPULAR_POSTS_KEY = "popular_posts";
-    private static final String POPULAR_POSTS_PATTERN = POPULAR_POSTS_KEY + "*";
+    private final PopularPostRankingService popularPostRankingService;
+    private final HotPostEngine hotPostEngine;
+    private final CounterService counterService;
+    private final PostLikeBuffer postLikeBuffer;
+    private final LikeFilter likeFilter;
+    private final TimelineService timelineService;
+    private final TwoTierCache<Page<PostSummaryDTO>> popularPostsCache;
+    private final TwoTierCache<List<PostSummaryDTO>> hotPostsCache;
+    private final TwoTierCache<PostDetailDTO> postDetailCache;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
     private EntityManager entityManager;
 
-    @Scheduled(cron = "0 0 0 * * *")  // 매일 자정에 실행
-    public void updatePopularPostsCache() {
-        log.info("Updating popular posts cache at midnight");
-
-        try {
-            // 1. 기존 캐시 삭제 시 패턴 사용
-            Set<String> keys = redisTemplate.keys(POPULAR_POSTS_PATTERN);
-            if (keys != null && !keys.isEmpty()) {
-                redisTemplate.delete(keys);
-                log.info("Deleted {} cached popular posts", keys.size());
-            }
-
-            // 2. 새로운 캐시 생성
-            int[] pageSizes = {10, 20, 30};
-            for (int size : pageSizes) {
-                getPopularPosts(PageRequest.of(0, size));
-            }
-            log.info("Successfully updated popular posts cache");
-        } catch (Exception e) {
-            log.error("Failed to update popular posts cache", e);
-            // 에러 처리 로직 추가 가능
-        }
-    }
-
     // 현재 구현된 기능: 게시물 생성
     @Transactional
     public PostDTO createPost(PostDTO postDTO, long userId) {
@@ -88,6 +77,8 @@ public class PostService {
         User user = userService.findById(userId);
         post.setUser(user);
         postRepository.save(post);
+        popularPostRankingService.addPost(post.getId());
+        timelineService.onPostCreated(post.getId(), userId);
 
         return convertToDTO(post, user);
     }
@@ -100,6 +91,8 @@ public class PostService {
         post.setTitle(postDTO.getTitle());
         post.setContent(postDTO.getContent());
         postRepository.save(post);
+        // 커밋 전에 지우면 다른 요청이 수정 전 게시물을 다시 캐싱할 수 있으므로 커밋 후에 지움
+        TransactionUtils.afterCommit(() -> postDetailCache.evict(postId.toString()));
 
         return convertToDTO(post, post.getUser());
     }
@@ -110,28 +103,82 @@ public class PostService {
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new ResourceNotFoundException("Post not found"));
         postRepository.delete(post);
+        TransactionUtils.afterCommit(() -> {
+            popularPostRankingService.removePost(postId);
+            hotPostEngine.removePost(postId);
+            postDetailCache.evict(postId.toString());
+        });
     }
 
     // 현재 구현된 기능: 게시물 ID로 조회
     @Transactional
-        public PostDetailDTO getPostById(Long postId, Long userId) {
-            return postRepository.findPostDetailById(postId, userId)
-                    .orElseThrow(() -> new ResourceNotFoundException("Post not found with id: " + postId));
+    public PostDetailDTO getPostById(Long postId, Long userId) {
+        // 사용자와 무관한 부분은 캐시에서 읽음 (좋아요 여부는 캐싱하지 않음)
+        PostDetailDTO cached = postDetailCache.get(postId.toString(),
+                () -> postRepository.findPostDetailById(postId, null).orElse(null));
+        if (cached == null) {
+            throw new ResourceNotFoundException("Post not found with id: " + postId);
+        }
+
+        // 좋아요 여부는 필터가 "확실히 아님" 이라고 하면 DB 를 조회하지 않음
+        Boolean pendingLike = userId != null ? postLikeBuffer.getPendingIntent(postId, userId) : null;
+        boolean likedByUser = pendingLike != null
+                ? pendingLike
+                : userId != null && likeFilter.mightContainPostLike(postId, userId)
+                        && postLikeRepository.existsByPostIdAndUserId(postId, userId);
+        return withViewerState(cached, likedByUser);
+    }
+
+    /**
+     * 여러 게시물 상세를 한 번에 조회 (최대 MultiGetResponse.MAX_IDS 개)
+     * 캐시에 있는 것은 캐시에서, 나머지는 IN 쿼리 한 번으로 읽고, 좋아요 여부도 IN 쿼리 한 번으로 확인합니다.
+     */
+    public MultiGetResponse<PostDetailDTO> getPostsByIds(List<Long> postIds, Long userId) {
+        List<Long> ids = MultiGetResponse.distinctIds(postIds);
+        Map<String, PostDetailDTO> cached = postDetailCache.getAll(
+                ids.stream().map(String::valueOf).toList(),
+                missing -> postRepository.findPostDetailsByIds(missing.stream().map(Long::valueOf).toList()).stream()
+                        .collect(Collectors.toMap(post -> post.getId().toString(), Function.identity())));
+
+        Set<Long> likedPostIds = findLikedPostIds(ids, userId);
+        Map<Long, PostDetailDTO> found = new HashMap<>();
+        cached.forEach((key, post) -> found.put(post.getId(), withViewerState(post, likedPostIds.contains(post.getId()))));
+        return MultiGetResponse.of(postIds, found);
+    }
 
+    // 캐시된 객체는 공유되므로 복사본에 요청별 값을 채워서 반환
+    // 아직 DB에 반영되지 않은 카운터 증감분과 write-behind 버퍼의 좋아요 의도도 더함
+    private PostDetailDTO withViewerState(PostDetailDTO cached, boolean likedByUser) {
+        Long postId = cached.getId();
+        return new PostDetailDTO(
+                cached.getId(), cached.getTitle(), cached.getContent(),
+                cached.getAuthor().getId(), cached.getAuthor().getUsername(), cached.getAuthor().getEmail(),
+                cached.getLikeCount() + counterService.getPending(CounterService.CounterType.POST_LIKE, postId)
+                        + postLikeBuffer.getPendingDelta(postId),
+                cached.getCommentCount() + counterService.getPending(CounterService.CounterType.POST_COMMENT, postId),
+                likedByUser,
+                cached.getCreatedDate());
     }
 
     // 현재 구현된 기능: 특정 사용자 ID로 게시물 조회
-    public List<PostDTO> getPostByUserId(Long userId) {
-        List<Post> posts = postRepository.findByUserId(userId);
-        return posts.stream()
-                .map(post -> convertToDTO(post, post.getUser()))
-                .toList();
+    public List<PostSummaryDTO> getPostByUserId(Long userId, Long viewerId) {
+        return withViewerState(postRepository.findSummariesByUserId(userId), viewerId);
     }
 
     // 현재 구현된 기능: 게시물 좋아요 기능
     @Transactional
     public void likePost(Long postId, Long userId) {
-        if (postLikeRepository.existsByPostIdAndUserId(postId, userId)) {
+        // write-behind 모드: 게시물 존재만 기본 키로 확인하고 의도를 기록한 뒤 바로 응답 (중복 좋아요는 반영 시점에 무시됨)
+        if (postLikeBuffer.isEnabled()) {
+            if (!postLikeBuffer.postExists(postId)) {
+                throw new ResourceNotFoundException("Post not found");
+            }
+            postLikeBuffer.like(postId, userId);
+            return;
+        }
+        // 필터에 없으면 확실히 누르지 않은 것이므로 존재 여부 조회를 생략 (필터가 어긋나도 유니크 인덱스가 막음)
+        if (likeFilter.mightContainPostLike(postId, userId)
+                && postLikeRepository.existsByPostIdAndUserId(postId, userId)) {
             throw new AlreadyLikedException("이미 좋아요를 누른 게시물입니다.");
         }
 
@@ -143,20 +190,35 @@ public class PostService {
         postLike.setPost(post);
         postLike.setUser(user);
 
-        postLikeRepository.save(postLike);
+        likeFilter.addPostLike(postId, userId);
+        try {
+            postLikeRepository.save(postLike);
+        } catch (DataIntegrityViolationException e) {
+            throw new AlreadyLikedException("이미 좋아요를 누른 게시물입니다.");
+        }
+        popularPostRankingService.incrementLikes(postId, 1);
+        hotPostEngine.recordLike(postId, postLike.getCreatedDate(), 1);
+        counterService.increment(CounterService.CounterType.POST_LIKE, postId, 1);
 
-        notificationService.sendPostLikeNotification(post.getUser().getId(), user.getUsername());
+        notificationService.sendPostLikeNotification(post.getUser().getId(), postId, user.getUsername());
     }
 
     // 현재 구현된 기능: 게시물 좋아요 취소
     @Transactional
     public void unlikePost(Long postId, Long userId) {
+        if (postLikeBuffer.isEnabled()) {
+            postLikeBuffer.unlike(postId, userId);
+            return;
+        }
         // 단일 쿼리로 PostLike 조회
         PostLike postLike = postLikeRepository.findByPostIdAndUserId(postId, userId)
                 .orElseThrow(() -> new IllegalArgumentException("좋아요를 누르지 않은 게시물입니다."));
 
         // 직접 삭제
         postLikeRepository.delete(postLike);
+        popularPostRankingService.incrementLikes(postId, -1);
+        hotPostEngine.recordLike(postId, postLike.getCreatedDate(), -1);
+        counterService.increment(CounterService.CounterType.POST_LIKE, postId, -1);
     }
 
     // DTO 변환 헬퍼 메서드
@@ -171,75 +233,164 @@ public class PostService {
         );
     }
 
-    // 현재 구현된 기능: 모든 게시물 조회
-    public List<PostDTO> getAllPosts() {
-        List<Post> posts = postRepository.findAll();
-        return posts.stream()
-                .map(post -> convertToDTO(post, post.getUser()))
-                .toList();
+    /**
+     * 모든 게시물 요약을 EXPORT_CHUNK_SIZE 개씩 chunkConsumer 에 넘김
+     * 목록 전체를 메모리에 만들지 않고 id 기준 keyset 구간(WHERE id > 마지막 id LIMIT n)으로 나눠 읽으면서 바로 넘기므로
+     * 테이블 크기와 무관하게 메모리 사용량이 일정합니다. (요약은 엔티티가 아닌 DTO 라 영속성 컨텍스트에 쌓이지 않음)
+     * 서버 커서를 열어 두지 않으므로 구간 사이의 좋아요 여부 조회가 남은 결과를 메모리로 끌어오지 않고,
+     * 응답을 쓰는 동안 DB 연결을 붙잡지도 않습니다.
+     */
+    public void streamAllPosts(Long viewerId, Consumer<List<PostSummaryDTO>> chunkConsumer) {
+        PageRequest chunkSize = PageRequest.of(0, EXPORT_CHUNK_SIZE);
+        long lastId = 0;
+        List<PostSummaryDTO> chunk;
+        do {
+            chunk = postRepository.findSummariesAfter(lastId, chunkSize);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            lastId = chunk.get(chunk.size() - 1).getId();
+            chunkConsumer.accept(withViewerState(chunk, viewerId));
+        } while (chunk.size() == EXPORT_CHUNK_SIZE);
     }
 
     // 게시물 페이징
-    public Page<PostDTO> getPostsByPagination(Pageable pageable) {
-        Page<Post> posts = postRepository.findAll(pageable);
-        return posts.map(post -> convertToDTO(post, post.getUser()));
+    public Page<PostSummaryDTO> getPostsByPagination(Pageable pageable, Long viewerId) {
+        return withViewerState(postRepository.findSummaries(pageable), viewerId);
+    }
+
+    // 게시물 커서 페이징 (최신순, 전체 개수 조회 없음)
+    public CursorPage<PostSummaryDTO> getPostsByCursor(String cursor, int size, Long viewerId) {
+        int pageSize = CursorUtils.normalizeSize(size);
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        List<PostSummaryDTO> posts;
+        if (cursor == null || cursor.isBlank()) {
+            posts = postRepository.findLatestSummaries(limit);
+        } else {
+            CursorUtils.Cursor decoded = CursorUtils.decode(cursor);
+            posts = postRepository.findLatestSummariesBefore(decoded.createdDate(), decoded.id(), limit);
+        }
+
+        CursorPage<PostSummaryDTO> page = CursorPage.of(posts, pageSize,
+                post -> CursorUtils.encode(post.getCreatedDate(), post.getId()));
+        return new CursorPage<>(withViewerState(page.getContent(), viewerId), page.getNextCursor(), page.isHasNext());
+    }
+
+    /**
+     * 홈 타임라인 (본인과 친구들의 게시물, 최신순)
+     * Redis 타임라인에서 ID 구간을 읽고 요약을 IN 쿼리 한 번으로 채웁니다.
+     * 커서는 마지막 게시물 ID 이며, 그 사이 삭제된 게시물은 빠지므로 size 보다 적게 반환될 수 있습니다.
+     */
+    public CursorPage<PostSummaryDTO> getHomeTimeline(Long userId, String cursor, int size) {
+        int pageSize = CursorUtils.normalizeSize(size);
+        Long beforePostId = cursor == null || cursor.isBlank() ? null : CursorUtils.decodeId(cursor);
+
+        List<Long> postIds = timelineService.getTimelinePostIds(userId, beforePostId, pageSize + 1);
+        CursorPage<Long> page = CursorPage.of(postIds, pageSize, CursorUtils::encodeId);
+        List<PostSummaryDTO> posts = page.getContent().isEmpty()
+                ? Collections.emptyList()
+                : withViewerState(findPostsInOrder(page.getContent()), userId);
+        return new CursorPage<>(posts, page.getNextCursor(), page.isHasNext());
     }
 
     /**
      * 인기 게시물을 조회하는 메서드
-     * 좋아요 수와 댓글 수를 기반으로 인기도를 계산합니다.
+     * 좋아요 수와 댓글 수로 정렬된 Redis 랭킹에서 페이지 구간의 ID만 읽고, 해당 게시물만 조회합니다.
+     * 자주 조회되는 앞쪽 페이지는 짧은 TTL 의 로컬 캐시에서 바로 반환합니다.
+     * 캐시 미스가 동시에 몰려도 DB 조회는 키당 한 번만 실행되고, 만료 전에 백그라운드에서 미리 갱신합니다.
      */
-    @Transactional
-    @SuppressWarnings("unchecked")
-    public Page<PostDTO> getPopularPosts(Pageable pageable) {
-        String cacheKey = POPULAR_POSTS_KEY + ":" + pageable.getPageNumber() + ":" + pageable.getPageSize();
-
-        // 1. Redis에서 먼저 조회
-        Object cachedValue = redisTemplate.opsForValue().get(cacheKey);
-        Object totalElements = redisTemplate.opsForValue().get(cacheKey + ":total");
-
-        if (cachedValue != null && totalElements != null) {
-            List<PostDTO> cachedList = (List<PostDTO>) cachedValue;
-            long total = ((Number) totalElements).longValue();  // 안전한 형변환
-            return new PageImpl<>(cachedList, pageable, total);
-        }
+    public Page<PostSummaryDTO> getPopularPosts(Pageable pageable, Long viewerId) {
+        // 백그라운드 갱신은 요청 트랜잭션 밖에서 실행되므로 loader 가 직접 트랜잭션을 엶
+        // 캐시에는 조회자와 무관한 요약만 두고 좋아요 여부는 요청마다 채움
+        Page<PostSummaryDTO> page = popularPostsCache.get(pageable.getPageNumber() + ":" + pageable.getPageSize(),
+                () -> transactionTemplate.execute(status -> loadPopularPosts(pageable)));
+        return withViewerState(page, viewerId);
+    }
 
-        // 2. 캐시에 없으면 DB에서 조회
-        Page<Post> posts = postRepository.findPopularPosts(pageable);
-        Page<PostDTO> postDTOs = posts.map(post -> {
-            PostDTO dto = convertToDTO(post, post.getUser());
-            dto.setLikedBy(post.getLikes().stream()
-                    .map(like -> like.getUser().getId())
-                    .collect(Collectors.toSet()));
-            return dto;
-        });
+    private Page<PostSummaryDTO> loadPopularPosts(Pageable pageable) {
+        // 1. 랭킹에서 해당 페이지의 게시물 ID 조회 (ZREVRANGE)
+        List<Long> postIds = popularPostRankingService.getRankedPostIds(pageable.getOffset(), pageable.getPageSize());
+        long total = popularPostRankingService.getRankedPostCount();
+        if (postIds.isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), pageable, total);
+        }
 
-        // 3. Redis에 저장 - TTL 제거 (수동으로만 갱신)
-        redisTemplate.opsForValue().set(cacheKey, postDTOs.getContent());
-        redisTemplate.opsForValue().set(cacheKey + ":total", postDTOs.getTotalElements());
+        // 2. ID 목록으로 게시물 조회 후 랭킹 순서대로 정렬
+        return new PageImpl<>(findPostsInOrder(postIds), pageable, total);
+    }
 
-        return postDTOs;
+    // ID 목록을 IN 쿼리 한 번으로 조회하고 전달받은 순서대로 정렬 (삭제된 게시물은 제외)
+    private List<PostSummaryDTO> findPostsInOrder(List<Long> postIds) {
+        Map<Long, PostSummaryDTO> postMap = postRepository.findSummariesByIds(postIds).stream()
+                .collect(Collectors.toMap(PostSummaryDTO::getId, Function.identity(), (first, second) -> first));
+        return postIds.stream()
+                .map(postMap::get)
+                .filter(Objects::nonNull)
+                .toList();
     }
 
     /**
      * 실시간 인기 게시물 조회 메서드
-     * 최근 24시간 동안의 활동을 기준으로 합니다.
+     * 최근 24시간(설정값) 동안의 활동을 메모리 엔진에서 집계한 순위를 기준으로 합니다.
      */
-    @Transactional
-    public List<PostDTO> getHotPosts(int limit) {
-        LocalDateTime oneDayAgo = LocalDateTime.now().minusDays(1);
-
-        List<Post> hotPosts = postRepository.findHotPosts(oneDayAgo, PageRequest.of(0, limit));
-
-        return hotPosts.stream()
-                .map(post -> {
-                    PostDTO dto = convertToDTO(post, post.getUser());
-                    dto.setLikedBy(post.getLikes().stream()
-                            .map(like -> like.getUser().getId())
-                            .collect(Collectors.toSet()));
-                    return dto;
-                })
-                .collect(Collectors.toList());
+    public List<PostSummaryDTO> getHotPosts(int limit, Long viewerId) {
+        // 요청 값마다 캐시 항목이 생기지 않도록 먼저 범위를 제한
+        int size = Math.max(1, Math.min(limit, HotPostEngine.MAX_LIMIT));
+        List<PostSummaryDTO> posts = hotPostsCache.get(String.valueOf(size),
+                () -> transactionTemplate.execute(status -> loadHotPosts(size)));
+        return withViewerState(posts, viewerId);
+    }
+
+    private List<PostSummaryDTO> loadHotPosts(int limit) {
+        List<Long> hotPostIds = hotPostEngine.getHotPostIds(limit);
+        if (hotPostIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return findPostsInOrder(hotPostIds);
+    }
+
+    private Page<PostSummaryDTO> withViewerState(Page<PostSummaryDTO> page, Long viewerId) {
+        return new PageImpl<>(withViewerState(page.getContent(), viewerId), page.getPageable(), page.getTotalElements());
+    }
+
+    // 목록 요약에 요청별 값을 채운 복사본 목록 (캐시된 요약은 공유되므로 직접 수정하지 않음)
+    private List<PostSummaryDTO> withViewerState(List<PostSummaryDTO> posts, Long viewerId) {
+        if (posts.isEmpty()) {
+            return posts;
+        }
+
+        Set<Long> likedPostIds = findLikedPostIds(posts.stream().map(PostSummaryDTO::getId).toList(), viewerId);
+        return posts.stream()
+                .map(post -> post.withViewerState(
+                        counterService.getPending(CounterService.CounterType.POST_LIKE, post.getId())
+                                + postLikeBuffer.getPendingDelta(post.getId()),
+                        counterService.getPending(CounterService.CounterType.POST_COMMENT, post.getId()),
+                        likedPostIds.contains(post.getId())))
+                .toList();
+    }
+
+    // 조회자가 좋아요를 누른 게시물: write-behind 버퍼 -> 필터 순으로 거른 뒤 남은 게시물만 IN 쿼리 한 번으로 확인
+    private Set<Long> findLikedPostIds(List<Long> postIds, Long viewerId) {
+        Set<Long> likedPostIds = new HashSet<>();
+        if (viewerId == null) {
+            return likedPostIds;
+        }
+        List<Long> candidates = new ArrayList<>();
+        for (Long postId : postIds) {
+            Boolean pendingLike = postLikeBuffer.getPendingIntent(postId, viewerId);
+            if (pendingLike != null) {
+                if (pendingLike) {
+                    likedPostIds.add(postId);
+                }
+            } else if (likeFilter.mightContainPostLike(postId, viewerId)) {
+                candidates.add(postId);
+            }
+        }
+        if (!candidates.isEmpty()) {
+            likedPostIds.addAll(postLikeRepository.findLikedPostIds(viewerId, candidates));
+        }
+        return likedPostIds;
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,298 @@
+package com.example.sns_project.service;
+
+import com.example.sns_project.util.TransactionUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 친구 게시물 홈 타임라인 (게시물 ID 목록만 관리, 내용은 PostService 가 한 번에 조회)
+ *
+ * 게시물을 쓰면 커밋 후 작성자와 친구들의 타임라인(Redis Sorted Set, 점수 = 게시물 ID)에 ID 를 넣습니다. (fan-out-on-write)
+ * 타임라인은 최근 size 개만 남기고, 키가 있는 사용자만 갱신합니다. (키가 없는데 넣으면 그 게시물만 있는 목록이 남기 때문)
+ * 키가 없으면(새 사용자, TTL 만료) 조회 시점에 DB 에서 친구 게시물을 한 번 읽어 채웁니다.
+ * 읽을 게시물이 없어도 빈 표시 멤버만 넣어 키를 만들어 두므로, 매 조회가 DB 로 가지 않고 fan-out 대상에서도 빠지지 않습니다.
+ * 다시 만드는 동안에는 "만드는 중" 키를 먼저 만들어 두고 fan-out 이 그 키에도 넣으므로,
+ * DB 를 읽은 뒤 커밋된 게시물도 합칠 때 빠지지 않습니다.
+ *
+ * 친구가 fanout-threshold 명보다 많은 작성자는 친구마다 넣지 않고 작성자 outbox 에만 넣고,
+ * 조회 시점에 친구인 대상의 outbox 를 읽어 합칩니다. (fan-out-on-read)
+ * 친구 관계가 바뀌면 두 사용자의 타임라인을 지워 다음 조회 때 다시 만듭니다.
+ */
+@Log4j2
+@Service
+public class TimelineService {
+
+    private static final String TIMELINE_KEY_PREFIX = "timeline:home:";
+    private static final String BUILDING_KEY_PREFIX = "timeline:building:";
+    private static final String OUTBOX_KEY_PREFIX = "timeline:outbox:";
+    private static final String CELEBRITIES_KEY = "timeline:celebrities";
+    private static final int FANOUT_CHUNK_SIZE = 1000;
+    // 재구성 시 한 쿼리에서 최근 게시물을 읽을 작성자 수
+    private static final int REBUILD_AUTHOR_CHUNK_SIZE = 100;
+    // 작성자 한 명의 최근 게시물 구간 (idx_posts_user_id 에서 뒤에서부터 읽음)
+    private static final String AUTHOR_POSTS_SQL =
+            "(SELECT id FROM posts WHERE user_id = ? AND id > ? ORDER BY id DESC LIMIT ?)";
+    // 게시물이 없는 타임라인의 빈 표시 (점수 0, 조회 결과에서는 제외)
+    private static final String EMPTY_MEMBER = "empty";
+    // 다시 만드는 노드가 죽었을 때 "만드는 중" 키가 남지 않도록 둔 만료 시간
+    private static final Duration BUILDING_TTL = Duration.ofMinutes(1);
+
+    // KEYS: [타임라인, 만드는 중] 쌍의 나열, ARGV: [게시물 ID, 최대 크기, TTL(초), 빈 표시 멤버]
+    private static final RedisScript<Long> FANOUT_SCRIPT = new DefaultRedisScript<>("""
+            local size = tonumber(ARGV[2])
+            local ttl = tonumber(ARGV[3])
+            local updated = 0
+            for i = 1, #KEYS, 2 do
+              if redis.call('EXISTS', KEYS[i]) == 1 then
+                redis.call('ZREM', KEYS[i], ARGV[4])
+                redis.call('ZADD', KEYS[i], ARGV[1], ARGV[1])
+                redis.call('ZREMRANGEBYRANK', KEYS[i], 0, -size - 1)
+                redis.call('EXPIRE', KEYS[i], ttl)
+                updated = updated + 1
+              end
+              if redis.call('EXISTS', KEYS[i + 1]) == 1 then
+                redis.call('ZADD', KEYS[i + 1], ARGV[1], ARGV[1])
+              end
+            end
+            return updated
+            """, Long.class);
+
+    // KEYS: [만드는 중], ARGV: [빈 표시 멤버, 만료(ms)]
+    // 빈 표시를 넣어 키를 만들어 둠 (fan-out 은 키가 있을 때만 넣으므로)
+    private static final RedisScript<Long> BEGIN_REBUILD_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('ZADD', KEYS[1], 0, ARGV[1])
+            redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            return 1
+            """, Long.class);
+
+    // KEYS: [타임라인, 만드는 중], ARGV: [최대 크기, TTL(초), 빈 표시 멤버, DB 에서 읽은 게시물 ID...]
+    // DB 결과와 만드는 동안 fan-out 된 게시물을 타임라인에 합치고 "만드는 중" 키를 지움
+    private static final RedisScript<Long> FINISH_REBUILD_SCRIPT = new DefaultRedisScript<>("""
+            local size = tonumber(ARGV[1])
+            for i = 4, #ARGV do
+              redis.call('ZADD', KEYS[1], ARGV[i], ARGV[i])
+            end
+            for _, member in ipairs(redis.call('ZRANGE', KEYS[2], 0, -1)) do
+              if member ~= ARGV[3] then
+                redis.call('ZADD', KEYS[1], member, member)
+              end
+            end
+            redis.call('DEL', KEYS[2])
+            if redis.call('ZCARD', KEYS[1]) == 0 then
+              redis.call('ZADD', KEYS[1], 0, ARGV[3])
+            elseif redis.call('ZCARD', KEYS[1]) > 1 then
+              redis.call('ZREM', KEYS[1], ARGV[3])
+            end
+            redis.call('ZREMRANGEBYRANK', KEYS[1], 0, -size - 1)
+            redis.call('EXPIRE', KEYS[1], ARGV[2])
+            return redis.call('ZCARD', KEYS[1])
+            """, Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final FriendGraphIndex friendGraphIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final int timelineSize;
+    private final Duration ttl;
+    private final int fanoutThreshold;
+    private final ThreadPoolExecutor fanoutExecutor;
+
+    public TimelineService(StringRedisTemplate stringRedisTemplate,
+                           FriendGraphIndex friendGraphIndex,
+                           JdbcTemplate jdbcTemplate,
+                           @Value("${sns.timeline.size:500}") int timelineSize,
+                           @Value("${sns.timeline.ttl-hours:72}") long ttlHours,
+                           @Value("${sns.timeline.fanout-threshold:5000}") int fanoutThreshold,
+                           @Value("${sns.timeline.fanout-queue-capacity:10000}") int fanoutQueueCapacity) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.friendGraphIndex = friendGraphIndex;
+        this.jdbcTemplate = jdbcTemplate;
+        this.timelineSize = timelineSize;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.fanoutThreshold = fanoutThreshold;
+        // 대기열이 가득 차면 요청 스레드에서 직접 실행해 속도를 맞춤 (타임라인 누락 대신 지연)
+        this.fanoutExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(fanoutQueueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "timeline-fanout");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    // 새 게시물을 작성자와 친구들의 타임라인에 반영 (커밋 후, 별도 스레드)
+    public void onPostCreated(Long postId, Long authorId) {
+        TransactionUtils.afterCommit(() -> fanoutExecutor.execute(() -> fanOut(postId, authorId)));
+    }
+
+    // 친구 관계가 바뀐 두 사용자의 타임라인을 다음 조회 때 다시 만들도록 지움
+    public void onFriendshipChanged(Long userId1, Long userId2) {
+        TransactionUtils.afterCommit(() -> {
+            try {
+                stringRedisTemplate.delete(List.of(timelineKey(userId1), timelineKey(userId2)));
+            } catch (Exception e) {
+                log.error("Failed to evict timelines of users {} and {}", userId1, userId2, e);
+            }
+        });
+    }
+
+    /**
+     * 타임라인에서 beforePostId 보다 오래된 게시물 ID 를 최신순으로 size 개 반환 (beforePostId 가 null 이면 처음부터)
+     * 자기 타임라인 범위 조회 한 번 + 친구인 outbox 작성자가 있으면 그 수만큼 범위 조회를 합칩니다.
+     */
+    public List<Long> getTimelinePostIds(Long userId, Long beforePostId, int size) {
+        double max = beforePostId != null ? beforePostId - 1 : Double.POSITIVE_INFINITY;
+        ZSetOperations<String, String> zSet = stringRedisTemplate.opsForZSet();
+
+        String key = timelineKey(userId);
+        if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(key))) {
+            rebuild(userId);
+        }
+
+        TreeSet<Long> postIds = new TreeSet<>(Comparator.reverseOrder());
+        addAll(postIds, zSet.reverseRangeByScore(key, Double.NEGATIVE_INFINITY, max, 0, size));
+        for (Long celebrityId : findFriendCelebrities(userId)) {
+            addAll(postIds, zSet.reverseRangeByScore(outboxKey(celebrityId), Double.NEGATIVE_INFINITY, max, 0, size));
+        }
+        return postIds.stream().limit(size).toList();
+    }
+
+    private void fanOut(Long postId, Long authorId) {
+        try {
+            List<Long> friendIds = friendGraphIndex.getFriendIds(authorId);
+            String member = postId.toString();
+
+            if (friendIds.size() > fanoutThreshold) {
+                // 친구가 많은 작성자: outbox 에만 넣고 친구들은 조회 시점에 합침
+                stringRedisTemplate.opsForSet().add(CELEBRITIES_KEY, authorId.toString());
+                stringRedisTemplate.opsForZSet().add(outboxKey(authorId), member, postId);
+                stringRedisTemplate.opsForZSet().removeRange(outboxKey(authorId), 0, -timelineSize - 1L);
+                friendIds = List.of();
+            }
+
+            List<String> keys = new ArrayList<>(Math.min(2 * (friendIds.size() + 1), FANOUT_CHUNK_SIZE));
+            keys.add(timelineKey(authorId));
+            keys.add(buildingKey(authorId));
+            for (Long friendId : friendIds) {
+                keys.add(timelineKey(friendId));
+                keys.add(buildingKey(friendId));
+                if (keys.size() >= FANOUT_CHUNK_SIZE) {
+                    stringRedisTemplate.execute(FANOUT_SCRIPT, keys, member,
+                            String.valueOf(timelineSize), String.valueOf(ttl.toSeconds()), EMPTY_MEMBER);
+                    keys.clear();
+                }
+            }
+            if (!keys.isEmpty()) {
+                stringRedisTemplate.execute(FANOUT_SCRIPT, keys, member,
+                        String.valueOf(timelineSize), String.valueOf(ttl.toSeconds()), EMPTY_MEMBER);
+            }
+        } catch (Exception e) {
+            // 반영하지 못한 타임라인은 TTL 이 지나면 DB 기준으로 다시 만들어짐
+            log.error("Failed to fan out post {} of user {}", postId, authorId, e);
+        }
+    }
+
+    /**
+     * 작성자 본인과 친구들의 최근 게시물로 타임라인을 채움 (게시물이 없으면 빈 표시만 넣어 TTL 동안 다시 읽지 않음)
+     * DB 를 읽기 전에 "만드는 중" 키를 만들어 두므로, 읽은 뒤 커밋된 게시물은 fan-out 이 그 키에 넣고 합칠 때 함께 들어갑니다.
+     */
+    private void rebuild(Long userId) {
+        String buildingKey = buildingKey(userId);
+        stringRedisTemplate.execute(BEGIN_REBUILD_SCRIPT, List.of(buildingKey),
+                EMPTY_MEMBER, String.valueOf(BUILDING_TTL.toMillis()));
+
+        List<Long> postIds = findRecentPostIds(userId);
+        List<String> args = new ArrayList<>(postIds.size() + 3);
+        args.add(String.valueOf(timelineSize));
+        args.add(String.valueOf(ttl.toSeconds()));
+        args.add(EMPTY_MEMBER);
+        postIds.forEach(postId -> args.add(postId.toString()));
+        stringRedisTemplate.execute(FINISH_REBUILD_SCRIPT, List.of(timelineKey(userId), buildingKey), args.toArray());
+    }
+
+    /**
+     * 본인과 친구들의 최근 게시물 ID (최신순, 최대 timelineSize 개)
+     * 작성자마다 (user_id, id) 인덱스의 최근 구간만 UNION ALL 로 읽어 합치므로, 친구 게시물이 적어도 posts 전체를 훑지 않습니다.
+     * 앞 구간에서 이미 timelineSize 개를 모았으면 그보다 새 게시물만 읽습니다.
+     */
+    private List<Long> findRecentPostIds(Long userId) {
+        List<Long> authorIds = new ArrayList<>(friendGraphIndex.getFriendIds(userId));
+        authorIds.add(userId);
+
+        PriorityQueue<Long> newest = new PriorityQueue<>(); // 가장 오래된 것이 맨 앞
+        for (int from = 0; from < authorIds.size(); from += REBUILD_AUTHOR_CHUNK_SIZE) {
+            List<Long> chunk = authorIds.subList(from, Math.min(from + REBUILD_AUTHOR_CHUNK_SIZE, authorIds.size()));
+            long afterId = newest.size() == timelineSize ? newest.peek() : 0L;
+            List<Object> args = new ArrayList<>(chunk.size() * 3);
+            for (Long authorId : chunk) {
+                args.add(authorId);
+                args.add(afterId);
+                args.add(timelineSize);
+            }
+            jdbcTemplate.query(String.join(" UNION ALL ", Collections.nCopies(chunk.size(), AUTHOR_POSTS_SQL)),
+                    (RowCallbackHandler) rs -> {
+                        long postId = rs.getLong(1);
+                        if (newest.size() < timelineSize) {
+                            newest.add(postId);
+                        } else if (postId > newest.peek()) {
+                            newest.poll();
+                            newest.add(postId);
+                        }
+                    }, args.toArray());
+        }
+
+        List<Long> postIds = new ArrayList<>(newest);
+        postIds.sort(Comparator.reverseOrder());
+        return postIds;
+    }
+
+    // outbox 를 쓰는 작성자 중 이 사용자의 친구
+    private List<Long> findFriendCelebrities(Long userId) {
+        Set<String> celebrities = stringRedisTemplate.opsForSet().members(CELEBRITIES_KEY);
+        if (celebrities == null || celebrities.isEmpty()) {
+            return List.of();
+        }
+        return friendGraphIndex.filterFriends(userId, celebrities.stream().map(Long::valueOf).toList());
+    }
+
+    private void addAll(Set<Long> target, Set<String> members) {
+        if (members != null) {
+            for (String member : members) {
+                if (!EMPTY_MEMBER.equals(member)) {
+                    target.add(Long.valueOf(member));
+                }
+            }
+        }
+    }
+
+    private String timelineKey(Long userId) {
+        return TIMELINE_KEY_PREFIX + userId;
+    }
+
+    private String buildingKey(Long userId) {
+        return BUILDING_KEY_PREFIX + userId;
+    }
+
+    private String outboxKey(Long userId) {
+        return OUTBOX_KEY_PREFIX + userId;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fanoutExecutor.shutdown();
+    }
+}
@@ -1,12 +1,15 @@
 package com.example.sns_project.service;
 
 // 사용자 관련 비즈니스 로직을 처리하는 서비스
+import com.example.sns_project.cache.TwoTierCache;
+import com.example.sns_project.dto.MultiGetResponse;
 import com.example.sns_project.dto.UserDTO;
 import com.example.sns_project.dto.UserPasswordUpdateDTO;
 import com.example.sns_project.exception.ResourceNotFoundException;
 import com.example.sns_project.exception.UnauthorizedException;
 import com.example.sns_project.model.User;
 import com.example.sns_project.repository.UserRepository;
+import com.example.sns_project.util.TransactionUtils;
 import com.github.javafaker.Faker;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -14,35 +17,63 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 @Service
 public class UserService {
 
     private final UserRepository userRepository;
     private final BCryptPasswordEncoder passwordEncoder;
+    private final TwoTierCache<UserDTO> userSummaryCache;
     private final Faker faker = new Faker();
 
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, TwoTierCache<UserDTO> userSummaryCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = new BCryptPasswordEncoder();
+        this.userSummaryCache = userSummaryCache;
     }
 
     // 전체 사용자 정보 조회 (인증된 사용자용)
     public UserDTO getUserById(Long id) {
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        UserDTO user = getUserSummary(id);
         return new UserDTO(user.getId(), user.getUsername(), user.getEmail());
     }
 
     // 공개 사용자 정보 조회 (다른 사용자 조회용)
     public UserDTO getPublicUserInfo(Long id) {
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        UserDTO user = getUserSummary(id);
         // 공개 정보만 반환 (이메일 등 민감한 정보 제외)
         return new UserDTO(user.getId(), user.getUsername(), null);
     }
 
+    // 여러 사용자의 공개 정보를 한 번에 조회 (캐시 -> 없는 것만 IN 쿼리 한 번)
+    public MultiGetResponse<UserDTO> getPublicUsersInfo(List<Long> userIds) {
+        List<Long> ids = MultiGetResponse.distinctIds(userIds);
+        Map<String, UserDTO> cached = userSummaryCache.getAll(
+                ids.stream().map(String::valueOf).toList(),
+                missing -> userRepository.findAllById(missing.stream().map(Long::valueOf).toList()).stream()
+                        .collect(Collectors.toMap(user -> user.getId().toString(),
+                                user -> new UserDTO(user.getId(), user.getUsername(), user.getEmail()))));
+
+        Map<Long, UserDTO> found = new HashMap<>();
+        cached.forEach((key, user) -> found.put(user.getId(), new UserDTO(user.getId(), user.getUsername(), null)));
+        return MultiGetResponse.of(userIds, found);
+    }
+
+    // 사용자 요약 정보는 2단 캐시에서 조회 (공유 객체이므로 호출하는 쪽에서 복사해서 반환)
+    private UserDTO getUserSummary(Long id) {
+        UserDTO user = userSummaryCache.get(id.toString(), () -> userRepository.findById(id)
+                .map(found -> new UserDTO(found.getId(), found.getUsername(), found.getEmail()))
+                .orElse(null));
+        if (user == null) {
+            throw new ResourceNotFoundException("User not found");
+        }
+        return user;
+    }
+
     // 사용자 정보 수정
     @Transactional
     public UserDTO updateUserInfo(Long id, UserDTO userDTO) {
@@ -53,6 +84,8 @@ public class UserService {
         user.setEmail(userDTO.getEmail());
 
         userRepository.save(user);
+        // 커밋 전에 지우면 다른 요청이 수정 전 정보를 다시 캐싱할 수 있으므로 커밋 후에 지움
+        TransactionUtils.afterCommit(() -> userSummaryCache.evict(id.toString()));
         return new UserDTO(user.getId(), user.getUsername(), user.getEmail());
     }
     // 비밀번호 변경
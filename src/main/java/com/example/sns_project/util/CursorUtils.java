@@ -0,0 +1,58 @@
+package com.example.sns_project.util;
+
+import com.example.sns_project.exception.ApiException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+// 커서 기반 페이징에 사용하는 커서 인코딩/디코딩 유틸
+// 클라이언트에는 내용을 알 수 없는 Base64 문자열로만 전달합니다.
+public class CursorUtils {
+
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final String SEPARATOR = "_";
+
+    public record Cursor(LocalDateTime createdDate, Long id) {
+    }
+
+    // (createdDate, id) 커서
+    public static String encode(LocalDateTime createdDate, Long id) {
+        return encodeRaw(createdDate + SEPARATOR + id);
+    }
+
+    public static Cursor decode(String cursor) {
+        try {
+            String[] parts = decodeRaw(cursor).split(SEPARATOR);
+            return new Cursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]));
+        } catch (RuntimeException e) {
+            throw new ApiException("유효하지 않은 커서입니다.");
+        }
+    }
+
+    // id 단일 커서 (id 가 생성 순서와 같은 테이블용)
+    public static String encodeId(Long id) {
+        return encodeRaw(String.valueOf(id));
+    }
+
+    public static Long decodeId(String cursor) {
+        try {
+            return Long.parseLong(decodeRaw(cursor));
+        } catch (RuntimeException e) {
+            throw new ApiException("유효하지 않은 커서입니다.");
+        }
+    }
+
+    // 페이지 크기는 1 ~ MAX_PAGE_SIZE 로 제한
+    public static int normalizeSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    private static String encodeRaw(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeRaw(String cursor) {
+        return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    }
+}
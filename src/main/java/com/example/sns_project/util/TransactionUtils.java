@@ -0,0 +1,31 @@
+package com.example.sns_project.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class TransactionUtils {
+
+    // afterCommit 콜백을 실행 중인지 (이 단계에서 새로 등록한 콜백은 호출되지 않으므로 바로 실행해야 함)
+    private static final ThreadLocal<Boolean> RUNNING_AFTER_COMMIT = ThreadLocal.withInitial(() -> false);
+
+    // 현재 트랜잭션이 커밋된 뒤에 실행 (롤백되면 실행하지 않음)
+    // 트랜잭션 밖이나 다른 afterCommit 콜백 안에서 호출되면 바로 실행
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || RUNNING_AFTER_COMMIT.get()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                RUNNING_AFTER_COMMIT.set(true);
+                try {
+                    action.run();
+                } finally {
+                    RUNNING_AFTER_COMMIT.set(false);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.sns_project.websocket;
+
+import com.example.sns_project.dto.NotificationDTO;
+import com.example.sns_project.enums.NotificationType;
+import com.example.sns_project.notification.NotificationInbox;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 저장된 알림을 WebSocket(STOMP)으로 사용자에게 실시간 전송
+ * NotificationWriter 가 저장한 배치를 넘기면 별도 스레드에서 사용자별로 묶어
+ * 알림 목록(/user/queue/notifications)과 읽지 않은 알림 수(/user/queue/notifications/unread-count, Redis 카운터)를 한 번씩 보냅니다.
+ * 접속하지 않은 사용자는 건너뛰고, 전송이 밀리면 오래된 배치부터 버립니다. (클라이언트는 재접속 시 API 로 다시 조회)
+ * 전체 발송 알림은 사용자별로 보내지 않고 /topic/notifications/events 로 한 번만 방송합니다.
+ */
+@Log4j2
+@Component
+public class NotificationPusher {
+
+    public static final String NOTIFICATIONS_DESTINATION = "/queue/notifications";
+    public static final String UNREAD_COUNT_DESTINATION = "/queue/notifications/unread-count";
+    public static final String BROADCAST_DESTINATION = "/topic/notifications/events";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final SimpUserRegistry userRegistry;
+    private final NotificationInbox notificationInbox;
+    private final ThreadPoolExecutor pushExecutor;
+
+    public NotificationPusher(SimpMessagingTemplate messagingTemplate,
+                              SimpUserRegistry userRegistry,
+                              NotificationInbox notificationInbox,
+                              @Value("${sns.notifications.push.queue-capacity:1000}") int queueCapacity) {
+        this.messagingTemplate = messagingTemplate;
+        this.userRegistry = userRegistry;
+        this.notificationInbox = notificationInbox;
+        this.pushExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "notification-pusher");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardOldestPolicy());
+    }
+
+    // 저장된 알림 배치를 전송 대기열에 넣음 (호출한 writer 스레드는 기다리지 않음)
+    public void push(List<NotificationDTO> notifications) {
+        if (notifications.isEmpty() || userRegistry.getUserCount() == 0) {
+            return;
+        }
+        pushExecutor.execute(() -> send(notifications));
+    }
+
+    // 전체 발송 알림을 구독 중인 모든 접속자에게 한 번에 전송
+    public void broadcast(String message, NotificationType notificationType) {
+        if (userRegistry.getUserCount() == 0) {
+            return;
+        }
+        pushExecutor.execute(() -> {
+            try {
+                messagingTemplate.convertAndSend(BROADCAST_DESTINATION,
+                        Map.of("message", message, "notificationType", notificationType.name()));
+            } catch (Exception e) {
+                log.error("Failed to broadcast notification", e);
+            }
+        });
+    }
+
+    private void send(List<NotificationDTO> notifications) {
+        try {
+            Map<Long, List<NotificationDTO>> byUser = notifications.stream()
+                    .filter(notification -> userRegistry.getUser(notification.getUserId().toString()) != null)
+                    .collect(Collectors.groupingBy(NotificationDTO::getUserId));
+            if (byUser.isEmpty()) {
+                return;
+            }
+
+            Map<Long, Long> unreadCounts = notificationInbox.getUnreadCounts(byUser.keySet());
+            byUser.forEach((userId, userNotifications) -> {
+                String user = userId.toString();
+                messagingTemplate.convertAndSendToUser(user, NOTIFICATIONS_DESTINATION, userNotifications);
+                messagingTemplate.convertAndSendToUser(user, UNREAD_COUNT_DESTINATION,
+                        unreadCounts.getOrDefault(userId, 0L));
+            });
+        } catch (Exception e) {
+            log.error("Failed to push {} notifications", notifications.size(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pushExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.sns_project.websocket;
+
+import com.example.sns_project.jwt.JwtUtil;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+
+// STOMP CONNECT 프레임의 Authorization 헤더를 JwtInterceptor 와 같은 방식으로 검증하고
+// 사용자 ID를 Principal 로 등록 (이후 /user/queue/** 목적지가 사용자별로 분리됨)
+@Component
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+
+    private final JwtUtil jwtUtil;
+
+    public StompAuthChannelInterceptor(JwtUtil jwtUtil) {
+        this.jwtUtil = jwtUtil;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || !StompCommand.CONNECT.equals(accessor.getCommand())) {
+            return message;
+        }
+
+        String authHeader = accessor.getFirstNativeHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            throw new MessageDeliveryException("인증 토큰이 필요합니다.");
+        }
+
+        String token = authHeader.substring(7);
+        if (!jwtUtil.validateToken(token)) {
+            throw new MessageDeliveryException("유효하지 않은 토큰입니다.");
+        }
+
+        String userId = String.valueOf(jwtUtil.getUserIdFromToken(token));
+        Principal principal = () -> userId;
+        accessor.setUser(principal);
+        return message;
+    }
+}
@@ -0,0 +1,22 @@
+-- notifications 테이블을 created_date 기준 월별 파티션으로 전환 (MariaDB, 점검 시간에 한 번만 실행)
+-- 전환 후에는 NotificationRetentionJob 이 다음 달 파티션을 미리 만들고, 보관 기간이 지난 파티션을 DROP 합니다.
+-- 전환하지 않아도 NotificationRetentionJob 은 id 구간 단위 DELETE 로 동작합니다.
+
+-- 1. 파티션 테이블은 외래 키를 지원하지 않으므로 user_id 외래 키 삭제
+--    (이름은 SHOW CREATE TABLE notifications 로 확인)
+--    ddl-auto=update 는 기동할 때 외래 키를 다시 만들려다 실패하고 경고 로그만 남깁니다.
+ALTER TABLE notifications DROP FOREIGN KEY FK_notifications_user_id;
+
+-- 2. 파티션 키(created_date)는 기본 키에 포함되어야 하므로 NOT NULL 로 바꾸고 기본 키를 (id, created_date) 로 변경
+ALTER TABLE notifications
+    MODIFY created_date DATETIME(6) NOT NULL,
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, created_date);
+
+-- 3. 월별 파티션 생성 (기존 데이터가 있는 달까지 나열하고, 마지막은 항상 pmax)
+--    예시는 2026년 9월 이전 데이터를 p202609 하나에 모으는 경우
+ALTER TABLE notifications PARTITION BY RANGE (TO_DAYS(created_date)) (
+    PARTITION p202609 VALUES LESS THAN (TO_DAYS('2026-10-01')),
+    PARTITION p202610 VALUES LESS THAN (TO_DAYS('2026-11-01')),
+    PARTITION pmax VALUES LESS THAN MAXVALUE
+);
@@ -0,0 +1,212 @@
+package com.example.sns_project.cache;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+// Redis 없이 로컬 단계만으로 single-flight / 미리 갱신 동작 확인
+// 만료/갱신 시각은 FakeTicker 로 움직이고, 스레드 사이 순서는 latch 로 맞춤 (실제 시간에 기대지 않음)
+class TwoTierCacheTest {
+
+    private static final Duration LOCAL_TTL = Duration.ofSeconds(10);
+    private static final Duration REFRESH_POINT = Duration.ofSeconds(1); // refreshAheadRatio 0.1
+    // 기다리지 않아야 하는 경우는 이 시간보다 훨씬 짧은 제한 안에 끝나는지 확인
+    private static final Duration LONG_LOAD_WAIT_TIMEOUT = Duration.ofMinutes(1);
+    private static final Duration NO_WAIT_LIMIT = Duration.ofSeconds(10);
+
+    private final FakeTicker ticker = new FakeTicker();
+
+    private TwoTierCache<String> cache(Executor refreshExecutor, Duration loadWaitTimeout) {
+        return TwoTierCache.<String>builder()
+                .name("test")
+                .maximumSize(100)
+                .localTtl(LOCAL_TTL)
+                .refreshAheadRatio(0.1)
+                .refreshExecutor(refreshExecutor)
+                .loadWaitTimeout(loadWaitTimeout)
+                .ticker(ticker)
+                .invalidationBus(new CacheInvalidationBus(null))
+                .meterRegistry(new SimpleMeterRegistry())
+                .build();
+    }
+
+    private TwoTierCache<String> cache(Executor refreshExecutor) {
+        return cache(refreshExecutor, LONG_LOAD_WAIT_TIMEOUT);
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        TwoTierCache<String> cache = cache(Runnable::run);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService requests = Executors.newFixedThreadPool(8);
+        try {
+            Future<String> first = requests.submit(() -> cache.get("key", () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return "value";
+            }));
+            loading.await();
+
+            // 나머지 요청은 진행 중인 로드를 기다림 (기다리기 시작할 때까지 확인한 뒤 로드를 끝냄)
+            List<Thread> waiters = new ArrayList<>();
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                CountDownLatch started = new CountDownLatch(1);
+                Thread[] thread = new Thread[1];
+                results.add(requests.submit(() -> {
+                    thread[0] = Thread.currentThread();
+                    started.countDown();
+                    return cache.get("key", () -> {
+                        loads.incrementAndGet();
+                        return "other";
+                    });
+                }));
+                started.await();
+                waiters.add(thread[0]);
+            }
+            for (Thread waiter : waiters) {
+                awaitState(waiter, Thread.State.TIMED_WAITING);
+            }
+            release.countDown();
+
+            assertEquals("value", first.get(NO_WAIT_LIMIT.toSeconds(), TimeUnit.SECONDS));
+            for (Future<String> result : results) {
+                assertEquals("value", result.get(NO_WAIT_LIMIT.toSeconds(), TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            release.countDown();
+            requests.shutdownNow();
+        }
+    }
+
+    @Test
+    void refreshAheadReplacesValueInBackground() {
+        TwoTierCache<String> cache = cache(Runnable::run);
+        assertEquals("v1", cache.get("key", () -> "v1"));
+        assertEquals("v1", cache.get("key", () -> "v2")); // 갱신 시점 전에는 그대로
+        ticker.advance(REFRESH_POINT);
+
+        // 갱신 시점이 지난 첫 조회는 기존 값을 반환하고, 그 다음부터 새 값
+        assertEquals("v1", cache.get("key", () -> "v2"));
+        assertEquals("v2", cache.get("key", () -> "v3"));
+    }
+
+    @Test
+    void keyStillLoadsWhenRefreshExecutorIsSaturated() {
+        CountDownLatch release = new CountDownLatch(1);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1), new ThreadPoolExecutor.AbortPolicy());
+        try {
+            // 실행 스레드와 대기열을 모두 채움
+            executor.execute(() -> await(release));
+            executor.execute(() -> await(release));
+
+            TwoTierCache<String> cache = cache(executor);
+            assertEquals("v1", cache.get("key", () -> "v1"));
+            ticker.advance(REFRESH_POINT);
+            assertEquals("v1", cache.get("key", () -> "v2")); // 갱신은 거절됨
+            assertEquals(0, cache.inFlightLoads());
+            ticker.advance(LOCAL_TTL);
+
+            // 거절된 갱신이 남아 있으면 LONG_LOAD_WAIT_TIMEOUT 동안 기다리게 됨
+            assertTimeoutPreemptively(NO_WAIT_LIMIT,
+                    () -> assertEquals("v3", cache.get("key", () -> "v3")));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void keyStillLoadsWhenRefreshTaskIsSilentlyDropped() {
+        // DiscardPolicy 처럼 예외 없이 작업을 버리는 실행기: 갱신 future 가 끝나지 않고 남음
+        // (남은 future 를 기다리다 포기하는 경로를 거치므로 기다리는 시간만 짧게 둠)
+        TwoTierCache<String> cache = cache(runnable -> {
+        }, Duration.ofMillis(10));
+        assertEquals("v1", cache.get("key", () -> "v1"));
+        ticker.advance(REFRESH_POINT);
+        assertEquals("v1", cache.get("key", () -> "v2"));
+        assertEquals(1, cache.inFlightLoads());
+        ticker.advance(LOCAL_TTL);
+
+        assertEquals("v3", cache.get("key", () -> "v3"));
+        // 남아 있던 future 를 치웠으므로 다음 만료 후에는 기다리지 않고 바로 로드
+        assertEquals(0, cache.inFlightLoads());
+        ticker.advance(LOCAL_TTL);
+        assertEquals("v4", cache.get("key", () -> "v4"));
+    }
+
+    @Test
+    void evictionDuringLoadDiscardsLoadedValue() throws Exception {
+        TwoTierCache<String> cache = cache(Runnable::run);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch evicted = new CountDownLatch(1);
+        ExecutorService requests = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> result = requests.submit(() -> cache.get("key", () -> {
+                loading.countDown();
+                await(evicted);
+                return "stale";
+            }));
+            loading.await();
+            cache.evict("key"); // 트랜잭션 밖이므로 바로 무효화
+            evicted.countDown();
+
+            // 로드한 쪽은 값을 받지만 캐시에는 남지 않음
+            assertEquals("stale", result.get(NO_WAIT_LIMIT.toSeconds(), TimeUnit.SECONDS));
+            assertEquals("fresh", cache.get("key", () -> "fresh"));
+        } finally {
+            requests.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // 스레드가 해당 상태(진행 중인 로드 대기)가 될 때까지 양보하며 확인
+    private static void awaitState(Thread thread, Thread.State state) {
+        while (thread.getState() != state) {
+            Thread.yield();
+        }
+    }
+
+    // 테스트에서 직접 움직이는 시계
+    private static final class FakeTicker implements Ticker {
+        private final AtomicLong nanos = new AtomicLong();
+
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+
+        void advance(Duration duration) {
+            nanos.addAndGet(duration.toNanos());
+        }
+    }
+}
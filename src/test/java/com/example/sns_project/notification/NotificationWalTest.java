@@ -0,0 +1,126 @@
+package com.example.sns_project.notification;
+
+import com.example.sns_project.enums.NotificationTargetType;
+import com.example.sns_project.enums.NotificationType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// WAL 레코드 형식(길이/CRC/seq/payload), 체크포인트, 재시작 복구 확인
+class NotificationWalTest {
+
+    @TempDir
+    Path directory;
+
+    private NotificationWal newWal() {
+        return new NotificationWal(true, directory.toString(), 1, false);
+    }
+
+    // 기동 직후 상태 (recover 후 이어서 기록)
+    private NotificationWal open() {
+        NotificationWal wal = newWal();
+        wal.recover();
+        return wal;
+    }
+
+    private PendingNotification notification(int index) {
+        return new PendingNotification((long) index, "알림 " + index, NotificationType.LIKE,
+                LocalDateTime.of(2024, 1, 1, 12, 0).plusSeconds(index),
+                NotificationTargetType.POST, 100L + index, index, List.of("사용자" + index, "kim, jr"));
+    }
+
+    private List<Long> appendAll(NotificationWal wal, int count) {
+        List<Long> seqs = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            wal.append(notification(i), seqs::add);
+        }
+        return seqs;
+    }
+
+    @Test
+    void recoversEveryFieldOfRecordsAfterCheckpoint() {
+        NotificationWal wal = open();
+        List<Long> seqs = appendAll(wal, 5);
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), seqs);
+        wal.checkpoint(2);
+
+        List<QueuedNotification> recovered = newWal().recover();
+        assertEquals(3, recovered.size());
+        for (int i = 0; i < recovered.size(); i++) {
+            assertEquals(i + 3L, recovered.get(i).seq());
+            assertEquals(notification(i + 3), recovered.get(i).notification());
+        }
+    }
+
+    @Test
+    void keepsOptionalFieldsEmptyAfterRoundTrip() {
+        NotificationWal wal = open();
+        PendingNotification plain = PendingNotification.of(7L, "friend request", NotificationType.FRIEND_REQUEST);
+        wal.append(plain, seq -> {
+        });
+
+        List<QueuedNotification> recovered = newWal().recover();
+        assertEquals(1, recovered.size());
+        assertEquals(plain, recovered.get(0).notification());
+    }
+
+    @Test
+    void continuesSequenceAfterRestart() {
+        appendAll(open(), 3);
+
+        NotificationWal restarted = newWal();
+        assertEquals(3, restarted.recover().size());
+        List<Long> seqs = new ArrayList<>();
+        restarted.append(notification(4), seqs::add);
+        assertEquals(List.of(4L), seqs);
+
+        restarted.checkpoint(4);
+        assertTrue(newWal().recover().isEmpty());
+    }
+
+    @Test
+    void stopsAtRecordWithBadChecksum() throws IOException {
+        appendAll(open(), 4);
+        corruptPayloadOfRecord(3);
+
+        List<QueuedNotification> recovered = newWal().recover();
+        assertEquals(List.of(1L, 2L), recovered.stream().map(QueuedNotification::seq).toList());
+        assertEquals(notification(2), recovered.get(1).notification());
+    }
+
+    // 세그먼트의 index 번째(1부터) 레코드 payload 첫 바이트를 뒤집음
+    private void corruptPayloadOfRecord(int index) throws IOException {
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(path -> path.getFileName().toString().endsWith(".wal")).findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(4);
+            long position = 0;
+            for (int i = 1; i < index; i++) {
+                header.clear();
+                channel.read(header, position);
+                position += 4 + 4 + 8 + header.getInt(0);
+            }
+            long payloadStart = position + 4 + 4 + 8;
+            ByteBuffer value = ByteBuffer.allocate(1);
+            channel.read(value, payloadStart);
+            value.put(0, (byte) ~value.get(0));
+            value.rewind();
+            channel.write(value, payloadStart);
+        }
+    }
+}
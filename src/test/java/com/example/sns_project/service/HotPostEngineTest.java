@@ -0,0 +1,136 @@
+package com.example.sns_project.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 시각을 직접 움직여 버킷 회전과 상위 K개 선택을 확인 (트랜잭션 밖이므로 기록은 바로 반영)
+class HotPostEngineTest {
+
+    private static final long BUCKET_MINUTES = 60;
+    private static final int BUCKET_COUNT = 3; // 윈도우 = 3시간
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+    private final HotPostEngine engine = new HotPostEngine(clock, BUCKET_MINUTES, BUCKET_COUNT, 2, 1, null, null);
+
+    private LocalDateTime now() {
+        return LocalDateTime.now(clock);
+    }
+
+    private void like(long postId, int times) {
+        for (int i = 0; i < times; i++) {
+            engine.recordLike(postId, now(), 1);
+        }
+    }
+
+    @Test
+    void returnsTopPostsByWeightedScore() {
+        like(1L, 1);                                // 2
+        like(2L, 3);                                // 6
+        engine.recordComment(3L, now(), 1);         // 1
+        like(4L, 2);                                // 4
+        engine.recordComment(4L, now(), 1);         // 5
+
+        assertEquals(List.of(2L, 4L, 1L), engine.getHotPostIds(3));
+        assertEquals(List.of(2L, 4L, 1L, 3L), engine.getHotPostIds(10));
+    }
+
+    @Test
+    void unlikeSubtractsFromBucketOfOriginalLike() {
+        LocalDateTime likedAt = now();
+        like(1L, 2);
+        like(2L, 1);
+        clock.advance(Duration.ofMinutes(BUCKET_MINUTES)); // 다음 버킷으로 이동
+
+        engine.recordLike(1L, likedAt, -1);
+        engine.recordLike(1L, likedAt, -1);
+        assertEquals(List.of(2L), engine.getHotPostIds(10));
+    }
+
+    @Test
+    void activityLeavesWindowAfterBucketCountBuckets() {
+        like(1L, 5);
+        clock.advance(Duration.ofMinutes(BUCKET_MINUTES));
+        like(2L, 1);
+
+        clock.advance(Duration.ofMinutes(BUCKET_MINUTES * (BUCKET_COUNT - 1)));
+        // 1번의 버킷은 윈도우를 벗어났고 2번의 버킷은 아직 남아 있음
+        assertEquals(List.of(2L), engine.getHotPostIds(10));
+
+        clock.advance(Duration.ofMinutes(BUCKET_MINUTES));
+        assertTrue(engine.getHotPostIds(10).isEmpty());
+    }
+
+    @Test
+    void rotatedSlotStartsFromZero() {
+        like(1L, 5);
+        // 같은 칸(slot)을 쓰는 BUCKET_COUNT 버킷 뒤의 기록은 이전 값을 이어 받지 않음
+        clock.advance(Duration.ofMinutes(BUCKET_MINUTES * BUCKET_COUNT));
+        like(1L, 1);
+        like(2L, 2);
+
+        assertEquals(List.of(2L, 1L), engine.getHotPostIds(10));
+    }
+
+    @Test
+    void ignoresActivityOutsideWindow() {
+        engine.recordLike(1L, now().minusMinutes(BUCKET_MINUTES * BUCKET_COUNT), 1);
+        engine.recordLike(2L, now().plusMinutes(BUCKET_MINUTES), 1);
+        assertTrue(engine.getHotPostIds(10).isEmpty());
+    }
+
+    @Test
+    void removedPostLosesItsSlot() {
+        like(1L, 3);
+        like(2L, 2);
+        like(3L, 1);
+
+        engine.removePost(1L);
+        assertEquals(List.of(2L, 3L), engine.getHotPostIds(2));
+    }
+
+    @Test
+    void clampsLimit() {
+        for (long postId = 1; postId <= HotPostEngine.MAX_LIMIT + 10; postId++) {
+            like(postId, 1);
+        }
+        assertEquals(HotPostEngine.MAX_LIMIT, engine.getHotPostIds(Integer.MAX_VALUE).size());
+        assertTrue(engine.getHotPostIds(0).isEmpty());
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}